@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+# Cold start benchmark for the jar built by `mvn -Paot package`.
+#
+# Starts the application RUNS times in each mode and prints the median of:
+#   started: JVM uptime when Spring Boot logs "Started", i.e. the application serves requests
+#   settled: wall clock until /actuator/health/storeReadiness shows no store STARTING, i.e. every EntityManagerFactory
+#            is built (or has failed, when its database isn't running)
+#
+# Usage: scripts/startup-benchmark.sh [runs]   (JAVA_HOME selects the JDK, it must be the one that built app.jsa)
+set -euo pipefail
+
+RUNS=${1:-5}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+cd "$(dirname "$0")/.."
+JAR=$(ls target/*-SNAPSHOT.jar 2>/dev/null | grep -v -- '-exec.jar' | head -1 || true)
+if [[ -z "$JAR" || ! -f target/app.jsa ]]; then
+    echo "build first: mvn -Paot package" >&2
+    exit 1
+fi
+
+declare -A MODES=(
+    [1-jit]=""
+    [2-aot]="-Dspring.aot.enabled=true"
+    [3-aot+cds]="-Dspring.aot.enabled=true -XX:SharedArchiveFile=target/app.jsa -Xlog:cds=off"
+)
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+run_once() {
+    local log=$1; shift
+    local begin pid port health settled=""
+    begin=$(date +%s.%N)
+    # shellcheck disable=SC2086
+    "$JAVA" $* -jar "$JAR" --server.port=0 > "$log" 2>&1 &
+    pid=$!
+    until grep -aq "Started MultipleDataSourcesJpaApplication" "$log"; do
+        kill -0 "$pid" 2>/dev/null || { echo "application exited, see $log" >&2; exit 1; }
+        sleep 0.05
+    done
+    port=$(grep -ao "Jetty started on port [0-9]*" "$log" | grep -o "[0-9]*$")
+    until [[ -n "$settled" ]]; do
+        health=$(curl -s --max-time 1 "http://localhost:$port/actuator/health/storeReadiness" || true)
+        if [[ $health == *'"status"'* && $health != *STARTING* ]]; then
+            settled=$(awk -v begin="$begin" -v end="$(date +%s.%N)" 'BEGIN { printf "%.3f", end - begin }')
+        fi
+        sleep 0.05
+    done
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    echo "$(grep -ao "process running for [0-9.]*" "$log" | grep -o "[0-9.]*$") $settled"
+}
+
+mkdir -p target/startup
+printf "%-12s %10s %10s\n" mode started settled
+for mode in $(printf "%s\n" "${!MODES[@]}" | sort); do
+    : > "target/startup/$mode.txt"
+    for ((i = 1; i <= RUNS; i++)); do
+        run_once "target/startup/$mode-$i.log" "${MODES[$mode]}" >> "target/startup/$mode.txt"
+    done
+    printf "%-12s %9ss %9ss\n" "${mode#*-}" \
+        "$(cut -d' ' -f1 "target/startup/$mode.txt" | median)" \
+        "$(cut -d' ' -f2 "target/startup/$mode.txt" | median)"
+done
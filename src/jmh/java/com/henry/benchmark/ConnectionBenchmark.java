@@ -0,0 +1,88 @@
+package com.henry.benchmark;
+
+import com.henry.benchmark.EmbeddedStores.Store;
+import com.henry.model.user.User;
+import com.henry.service.DefaultService;
+import com.henry.service.GroupCommitter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ResolvableType;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection strategies of the users store under contention: more callers than connections with a narrow and a
+ * wide pool, and single-row saves written directly or through the group committer. The near cache is off so every
+ * lookup borrows a connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class ConnectionBenchmark {
+
+    private static final int SEED_ROWS = 1_000;
+
+    @Param({"4", "16"})
+    public int poolSize;
+
+    /** Only changes {@link #save()}. */
+    @Param({"false", "true"})
+    public boolean groupCommit;
+
+    private ConfigurableApplicationContext context;
+    private DefaultService<Object, Long> service;
+    private GroupCommitter<User> groupCommitter;
+    private final AtomicInteger next = new AtomicInteger();
+    private final long[] seededIds = new long[SEED_ROWS];
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void start() {
+        Store store = Store.USERS;
+        context = EmbeddedStores.start(
+                store.property("pool.maximumPoolSize", poolSize),
+                store.property("cache.maximumSize", 0),
+                store.property("groupCommit.enabled", groupCommit));
+        service = store.service(context);
+        groupCommitter = (GroupCommitter<User>) context.getBeanProvider(
+                ResolvableType.forClassWithGenerics(GroupCommitter.class, User.class)).getObject();
+
+        for (int i = 0; i < SEED_ROWS; i++) {
+            seededIds[i] = store.idOf(service.save(store.newRow(i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public User save() {
+        return groupCommitter.save(User.builder().name("user" + next.incrementAndGet()).lastName("bench").build());
+    }
+
+    @Benchmark
+    public Object findById() {
+        return service.findById(seededIds[ThreadLocalRandom.current().nextInt(SEED_ROWS)]);
+    }
+}
@@ -0,0 +1,83 @@
+package com.henry.benchmark;
+
+import com.henry.MultipleDataSourcesJpaApplication;
+import com.henry.model.brand.Brand;
+import com.henry.model.company.Company;
+import com.henry.model.user.User;
+import com.henry.service.BrandServiceImpl;
+import com.henry.service.CompanyServiceImpl;
+import com.henry.service.DefaultService;
+import com.henry.service.RecordService;
+import com.henry.service.UserServiceImpl;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.function.Function;
+
+/**
+ * Boots the three persistence configs, and nothing of the web layer, on the in-memory H2 databases of the
+ * {@code embedded} profile. Extra properties override the store settings under test.
+ */
+public final class EmbeddedStores {
+
+    private EmbeddedStores() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(MultipleDataSourcesJpaApplication.class)
+                .profiles("embedded")
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties("logging.level.root=warn")
+                .properties(properties)
+                .run();
+    }
+
+    /** A store as seen by the benchmarks: its service, its property prefix and a factory for new rows. */
+    public enum Store {
+        USERS("mysql", UserServiceImpl.class, i -> User.builder().name("user" + i).lastName("bench").build(),
+                row -> ((User) row).getId()),
+        COMPANIES("postgres", CompanyServiceImpl.class, i -> Company.builder().name("company" + i).build(),
+                row -> ((Company) row).getId()),
+        BRANDS("oracle", BrandServiceImpl.class, i -> Brand.builder().name("brand" + i).build(),
+                row -> ((Brand) row).getId());
+
+        private final String prefix;
+        private final Class<? extends DefaultService<?, Long>> serviceType;
+        private final Function<Integer, Object> newRow;
+        private final Function<Object, Long> idOf;
+
+        Store(String datasource, Class<? extends DefaultService<?, Long>> serviceType,
+              Function<Integer, Object> newRow, Function<Object, Long> idOf) {
+            this.prefix = "spring.datasource." + datasource + ".";
+            this.serviceType = serviceType;
+            this.newRow = newRow;
+            this.idOf = idOf;
+        }
+
+        String property(String name, Object value) {
+            return prefix + name + "=" + value;
+        }
+
+        @SuppressWarnings("unchecked")
+        DefaultService<Object, Long> service(ConfigurableApplicationContext context) {
+            return (DefaultService<Object, Long>) context.getBean(serviceType);
+        }
+
+        @SuppressWarnings("unchecked")
+        RecordService<Object, Long> records(ConfigurableApplicationContext context) {
+            return (RecordService<Object, Long>) context.getBean(serviceType);
+        }
+
+        Object newRow(int i) {
+            return newRow.apply(i);
+        }
+
+        Long idOf(Object row) {
+            return idOf.apply(row);
+        }
+    }
+}
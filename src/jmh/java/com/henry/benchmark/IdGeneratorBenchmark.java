@@ -0,0 +1,65 @@
+package com.henry.benchmark;
+
+import com.henry.benchmark.EmbeddedStores.Store;
+import com.henry.service.DefaultService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Insert cost of the id generators: the id blocks users take from the {@code user_id_blocks} table of shard 0,
+ * against the prefetching sequence block generator on brands. Each with blocks of one id, i.e. a round trip per
+ * row, and with the block size the store uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class IdGeneratorBenchmark {
+
+    @Param({"table-blocks-1", "table-blocks-50", "block-sequence-1", "block-sequence-100"})
+    public String generator;
+
+    private ConfigurableApplicationContext context;
+    private Store store;
+    private DefaultService<Object, Long> service;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void start() {
+        store = generator.startsWith("table-blocks") ? Store.USERS : Store.BRANDS;
+        String blockSize = generator.substring(generator.lastIndexOf('-') + 1);
+        context = EmbeddedStores.start(store == Store.USERS
+                ? store.property("sharding.idBlockSize", blockSize)
+                : store.property("idBlockSize", blockSize));
+        service = store.service(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object save() {
+        return service.save(store.newRow(next.incrementAndGet()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.henry.benchmark;
+
+import com.henry.benchmark.EmbeddedStores.Store;
+import com.henry.service.DefaultService;
+import com.henry.service.RecordService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Large reads of each store as managed entities ({@link DefaultService}) and as records ({@link RecordService}):
+ * a full scan and one keyset page. Run with {@code -prof gc} to see the allocation per read next to the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final int PAGE_ROWS = 500;
+
+    @Param({"USERS", "COMPANIES", "BRANDS"})
+    public Store store;
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private DefaultService<Object, Long> service;
+    private RecordService<Object, Long> records;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = EmbeddedStores.start();
+        service = store.service(context);
+        records = store.records(context);
+
+        List<Object> chunk = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            chunk.add(store.newRow(i));
+            if (chunk.size() == 1_000 || i == rows - 1) {
+                service.saveAll(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Iterable<Object> findAllEntities() {
+        return service.findAll();
+    }
+
+    @Benchmark
+    public List<Object> findAllRecords() {
+        return records.findAllRecords();
+    }
+
+    @Benchmark
+    public List<Object> pageOfEntities() {
+        return service.findAfter(null, PAGE_ROWS);
+    }
+
+    @Benchmark
+    public List<Object> pageOfRecords() {
+        return records.findRecordsAfter(null, PAGE_ROWS);
+    }
+}
@@ -0,0 +1,102 @@
+package com.henry.benchmark;
+
+import com.henry.benchmark.EmbeddedStores.Store;
+import com.henry.service.DefaultService;
+import com.henry.service.RecordService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.StreamSupport;
+
+/**
+ * The {@link DefaultService} paths of each store: single and batched saves, point lookups with the near cache on
+ * and off, and full scans over a fixed seed of rows. Point lookups go through {@link RecordService}, the only
+ * path with a near cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int SEED_ROWS = 1_000;
+    private static final int BATCH_ROWS = 50;
+
+    @Param({"USERS", "COMPANIES", "BRANDS"})
+    public Store store;
+
+    /** Near cache entries, 0 sends every {@code findRecordById} to the database. */
+    @Param({"10000", "0"})
+    public long cacheSize;
+
+    private ConfigurableApplicationContext context;
+    private DefaultService<Object, Long> service;
+    private RecordService<Object, Long> records;
+    private long[] seededIds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = EmbeddedStores.start(store.property("cache.maximumSize", cacheSize));
+        service = store.service(context);
+        records = store.records(context);
+
+        List<Object> rows = new ArrayList<>();
+        for (int i = 0; i < SEED_ROWS; i++) {
+            rows.add(store.newRow(i));
+        }
+        seededIds = StreamSupport.stream(service.saveAll(rows).spliterator(), false)
+                .mapToLong(store::idOf)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object save() {
+        return service.save(store.newRow(next.incrementAndGet()));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Iterable<Object> saveAll() {
+        List<Object> rows = new ArrayList<>(BATCH_ROWS);
+        for (int i = 0; i < BATCH_ROWS; i++) {
+            rows.add(store.newRow(next.incrementAndGet()));
+        }
+        return service.saveAll(rows);
+    }
+
+    @Benchmark
+    public Object findRecordById() {
+        return records.findRecordById(seededIds[ThreadLocalRandom.current().nextInt(seededIds.length)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Iterable<Object> findAll() {
+        return service.findAll();
+    }
+}
@@ -0,0 +1,228 @@
+package com.henry.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fails the callers of a pool at once while its database is down, instead of letting each one wait out the
+ * connection timeout. {@code failureThreshold} consecutive connection or query failures open the circuit, and
+ * for {@code openDuration} every {@code getConnection} throws a {@link CircuitOpenException}. Then one caller is
+ * let through as a probe (half-open): if its connection is closed without a failure the circuit closes, otherwise
+ * it opens again. Failures that are the statement's fault, like constraint violations or syntax errors, don't
+ * count. Statements that don't set a timeout of their own get {@code queryTimeout}.
+ */
+public class CircuitBreakerDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerDataSource.class);
+
+    private final String name;
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int queryTimeoutSeconds;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // changed under this, read without it
+    private volatile State state = State.CLOSED;
+    private volatile long changedAt;
+
+    public CircuitBreakerDataSource(String name, DataSource target, boolean enabled, int failureThreshold,
+                                    Duration openDuration, Duration queryTimeout) {
+        super(target);
+        this.name = name;
+        this.enabled = enabled;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        // JDBC counts whole seconds, round up so a short timeout doesn't become none
+        this.queryTimeoutSeconds = queryTimeout == null || queryTimeout.isZero() ? 0
+                : (int) Math.max(1, (queryTimeout.toMillis() + 999) / 1000);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        boolean probe = admit();
+        try {
+            return guarded(super.getConnection(), probe);
+        } catch (SQLException | RuntimeException e) {
+            failed(probe);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        boolean probe = admit();
+        try {
+            return guarded(super.getConnection(username, password), probe);
+        } catch (SQLException | RuntimeException e) {
+            failed(probe);
+            throw e;
+        }
+    }
+
+    public State state() {
+        return state;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /** Whether the caller is the half-open probe; throws while the circuit is open or another probe is out. */
+    private boolean admit() throws CircuitOpenException {
+        if (!enabled || state == State.CLOSED) {
+            return false;
+        }
+        synchronized (this) {
+            long elapsed = System.nanoTime() - changedAt;
+            if (state == State.CLOSED) {
+                return false;
+            }
+            // also when HALF_OPEN: a probe that never returned its connection doesn't hold the circuit forever
+            if (elapsed < openNanos) {
+                throw new CircuitOpenException(name, Duration.ofNanos(openNanos - elapsed));
+            }
+            state = State.HALF_OPEN;
+            changedAt = System.nanoTime();
+            return true;
+        }
+    }
+
+    private void failed(boolean probe) {
+        if (enabled && (probe || consecutiveFailures.incrementAndGet() >= failureThreshold)) {
+            synchronized (this) {
+                if (state != State.OPEN) {
+                    log.warn("{} - circuit opened, failing connections for {} ms", name, openNanos / 1_000_000);
+                }
+                state = State.OPEN;
+                changedAt = System.nanoTime();
+                consecutiveFailures.set(0);
+            }
+        }
+    }
+
+    private void succeeded(boolean probe) {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (probe) {
+            synchronized (this) {
+                if (state == State.HALF_OPEN) {
+                    state = State.CLOSED;
+                    changedAt = System.nanoTime();
+                    log.info("{} - circuit closed", name);
+                }
+            }
+        }
+    }
+
+    /** Connection failures and timeouts, as opposed to errors in the statement itself. */
+    static boolean isOutage(SQLException e) {
+        String sqlState = e.getSQLState();
+        return e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException
+                || e instanceof SQLRecoverableException || e instanceof SQLTimeoutException
+                // 08: connection exception, 57014: statement cancelled on timeout (PostgreSQL)
+                || sqlState != null && (sqlState.startsWith("08") || sqlState.equals("57014"));
+    }
+
+    private Connection guarded(Connection target, boolean probe) {
+        if (!enabled && queryTimeoutSeconds == 0) {
+            return target;
+        }
+        Usage usage = new Usage(probe);
+        return JdbcProxies.proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "close" -> {
+                JdbcProxies.forward(target, method, args);
+                usage.closed();
+                yield null;
+            }
+            case "createStatement", "prepareStatement", "prepareCall" -> {
+                Statement statement = (Statement) usage.watch(target, method, args);
+                if (queryTimeoutSeconds > 0 && statement.getQueryTimeout() == 0) {
+                    statement.setQueryTimeout(queryTimeoutSeconds);
+                }
+                yield JdbcProxies.proxy(statementType(method),
+                        (statementProxy, statementMethod, statementArgs) ->
+                                usage.watch(statement, statementMethod, statementArgs));
+            }
+            default -> usage.watch(target, method, args);
+        });
+    }
+
+    /** The failures seen on one connection, counted once, and its verdict when it is closed. */
+    private final class Usage {
+
+        private final boolean probe;
+        private boolean failed;
+        private boolean closed;
+
+        Usage(boolean probe) {
+            this.probe = probe;
+        }
+
+        Object watch(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return JdbcProxies.forward(target, method, args);
+            } catch (SQLException e) {
+                if (isOutage(e) && !failed) {
+                    failed = true;
+                    failed(probe);
+                }
+                throw e;
+            }
+        }
+
+        void closed() {
+            if (!closed) {
+                closed = true;
+                if (!failed) {
+                    succeeded(probe);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<Statement> statementType(Method method) {
+        return (Class<Statement>) switch (method.getName()) {
+            case "prepareStatement" -> PreparedStatement.class;
+            case "prepareCall" -> CallableStatement.class;
+            default -> Statement.class;
+        };
+    }
+
+    /** Thrown instead of connecting while the circuit is open; {@link #retryAfter} is when the next probe may go. */
+    public static final class CircuitOpenException extends SQLTransientConnectionException {
+
+        private final transient Duration retryAfter;
+
+        CircuitOpenException(String name, Duration retryAfter) {
+            super(name + " - circuit open, retry in " + retryAfter.toMillis() + " ms", "08001");
+            this.retryAfter = retryAfter;
+        }
+
+        public Duration retryAfter() {
+            return retryAfter;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.henry.configuration;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the calls of one store in flight with a limit that follows the store's latency, so a slow database sheds
+ * its own load with fast 503s instead of tying up every server thread. The limit is adjusted after each call with
+ * a latency gradient: the ratio of the long-term to the recent round trip time. While the recent time stays within
+ * {@code tolerance} times the long-term one the limit grows by about its square root per call; when the database
+ * slows down it shrinks by up to half. Calls failing on timeouts or connections cut it by a tenth, like the
+ * multiplicative decrease of AIMD. The limit only grows while at least half of it is in use, so a quiet store
+ * doesn't build up a limit it has never been tested at.
+ */
+public class ConcurrencyLimiter {
+
+    static final int DEFAULT_INITIAL_LIMIT = 20;
+    static final int DEFAULT_MIN_LIMIT = 2;
+    static final int DEFAULT_MAX_LIMIT = 200;
+    static final double DEFAULT_TOLERANCE = 1.5;
+    static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_WINDOW = 600;
+    private static final double SHORT_WINDOW = 10;
+    private static final double BACKOFF = 0.9;
+    private static final long RATE_WINDOW_NANOS = Duration.ofSeconds(10).toNanos();
+
+    private final String name;
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final String retryAfter;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // guarded by this
+    private double limit;
+    private double longRtt;
+    private double shortRtt;
+
+    private volatile int currentLimit;
+    private final AtomicLong rateWindowStart = new AtomicLong(System.nanoTime());
+    private final LongAdder windowAccepted = new LongAdder();
+    private final LongAdder windowRejected = new LongAdder();
+    private volatile double rejectionRate;
+
+    public ConcurrencyLimiter(String name, boolean enabled, int initialLimit, int minLimit, int maxLimit,
+                              double tolerance, Duration retryAfter) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(name + " - limits must satisfy 1 <= min <= initial <= max, got "
+                    + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+        }
+        this.name = name;
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+        this.limit = initialLimit;
+        this.currentLimit = initialLimit;
+    }
+
+    /**
+     * Runs {@code work} if the limit allows another call, otherwise throws a 503 with {@code Retry-After} right away.
+     */
+    public <T> T call(Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        int observed = acquire();
+        long start = System.nanoTime();
+        try {
+            T result = work.get();
+            sample(System.nanoTime() - start, observed, false);
+            return result;
+        } catch (RuntimeException e) {
+            if (overloaded(e)) {
+                sample(System.nanoTime() - start, observed, true);
+            }
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public void run(Runnable work) {
+        call(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public int limit() {
+        return currentLimit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /** The share of calls rejected in the last complete ten-second window. */
+    public double rejectionRate() {
+        roll(System.nanoTime());
+        return rejectionRate;
+    }
+
+    private int acquire() {
+        roll(System.nanoTime());
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit) {
+                rejected.increment();
+                windowRejected.increment();
+                throw new Rejected(name + " is over its limit of " + currentLimit + " calls in flight", retryAfter);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                windowAccepted.increment();
+                return current + 1;
+            }
+        }
+    }
+
+    private synchronized void sample(long rttNanos, int observedInFlight, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            currentLimit = (int) limit;
+            return;
+        }
+        double rtt = rttNanos;
+        if (longRtt == 0) {
+            longRtt = rtt;
+            shortRtt = rtt;
+        }
+        shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+        longRtt += (shortRtt - longRtt) / LONG_WINDOW;
+        if (longRtt > 2 * shortRtt) {
+            // the database got faster for good, don't wait for the long average to forget
+            longRtt *= 0.95;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        if (target > limit && observedInFlight < limit / 2) {
+            return;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+        currentLimit = (int) limit;
+    }
+
+    private void roll(long now) {
+        long start = rateWindowStart.get();
+        if (now - start >= RATE_WINDOW_NANOS && rateWindowStart.compareAndSet(start, now)) {
+            long windowRejections = windowRejected.sumThenReset();
+            long calls = windowAccepted.sumThenReset() + windowRejections;
+            rejectionRate = calls == 0 ? 0 : (double) windowRejections / calls;
+        }
+    }
+
+    /**
+     * Failures that mean the database can't keep up, as opposed to a missing row or a bad request. An open circuit
+     * fails without asking the database, so it says nothing about its load.
+     */
+    private static boolean overloaded(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CircuitBreakerDataSource.CircuitOpenException) {
+                return false;
+            }
+        }
+        return e instanceof TransientDataAccessException || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    /** A call turned away by the limit, answered with 503 and {@code Retry-After}. */
+    public static final class Rejected extends ResponseStatusException {
+
+        private final String retryAfter;
+
+        Rejected(String reason, String retryAfter) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+            this.retryAfter = retryAfter;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.henry.configuration;
+
+import com.henry.record.LimiterRecord;
+import com.henry.record.LimiterStatsRecord;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the {@link ConcurrencyLimiter} of each store, publishes its limit and rejections as metrics and keeps it
+ * around to report its stats.
+ */
+@Component
+public class ConcurrencyLimits {
+
+    private final MeterRegistry registry;
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimits(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public ConcurrencyLimiter create(String store, LimiterRecord record) {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(store,
+                record != null && record.enabled(),
+                record != null && record.initialLimit() != null
+                        ? record.initialLimit() : ConcurrencyLimiter.DEFAULT_INITIAL_LIMIT,
+                record != null && record.minLimit() != null ? record.minLimit() : ConcurrencyLimiter.DEFAULT_MIN_LIMIT,
+                record != null && record.maxLimit() != null ? record.maxLimit() : ConcurrencyLimiter.DEFAULT_MAX_LIMIT,
+                record != null && record.tolerance() != null
+                        ? record.tolerance() : ConcurrencyLimiter.DEFAULT_TOLERANCE,
+                record != null && record.retryAfter() != null
+                        ? record.retryAfter() : ConcurrencyLimiter.DEFAULT_RETRY_AFTER);
+        Gauge.builder("datasource.concurrency.limit", limiter, ConcurrencyLimiter::limit)
+                .tag("datasource", store)
+                .register(registry);
+        Gauge.builder("datasource.concurrency.in_flight", limiter, ConcurrencyLimiter::inFlight)
+                .tag("datasource", store)
+                .register(registry);
+        FunctionCounter.builder("datasource.concurrency.rejected", limiter, ConcurrencyLimiter::rejected)
+                .tag("datasource", store)
+                .register(registry);
+        limiters.put(store, limiter);
+        return limiter;
+    }
+
+    public List<LimiterStatsRecord> snapshot() {
+        return limiters.values().stream()
+                .map(limiter -> new LimiterStatsRecord(limiter.name(), limiter.enabled(), limiter.limit(),
+                        limiter.inFlight(), limiter.accepted(), limiter.rejected(), limiter.rejectionRate()))
+                .sorted(Comparator.comparing(LimiterStatsRecord::store))
+                .toList();
+    }
+}
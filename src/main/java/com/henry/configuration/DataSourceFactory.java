@@ -0,0 +1,167 @@
+package com.henry.configuration;
+
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.CircuitBreakerRecord;
+import com.henry.record.DataSourceRecord;
+import com.henry.record.MysqlRecord;
+import com.henry.record.PoolRecord;
+import com.henry.record.ReplicaRecord;
+import com.henry.record.ReplicationRecord;
+import com.henry.record.ShardRecord;
+import com.henry.record.ShardingRecord;
+import com.henry.record.TableVersionRecord;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Builds the HikariCP pools of a store from its {@link DataSourceRecord}, each behind a
+ * {@link CircuitBreakerDataSource} that fails fast while its database is down, and a {@link BulkheadDataSource}
+ * that bounds concurrent callers. With replicas configured the primary and replica pools are put behind a
+ * {@link ReplicaRoutingDataSource}, with shards configured the shards are put behind a
+ * {@link ShardRoutingDataSource}. The whole store sits behind a {@link SqlAccountingDataSource}. Also holds the
+ * Hibernate settings shared by the three persistence units. Unset pool settings keep the HikariCP defaults.
+ */
+final class DataSourceFactory {
+
+    static final Duration DEFAULT_HEALTH_CHECK_INTERVAL = Duration.ofSeconds(5);
+    static final Duration DEFAULT_VERSION_REFRESH_INTERVAL = Duration.ofSeconds(1);
+    static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(5);
+
+    private DataSourceFactory() {
+    }
+
+    static DataSource create(String store, DataSourceRecord record, MetricsTrackerFactory metrics) {
+        return new SqlAccountingDataSource(store, routed(store, record, metrics));
+    }
+
+    /**
+     * The shards of a store behind a {@link ShardRoutingDataSource}: shard 0 is the store's own data source,
+     * replicas included, the {@code sharding.shards} follow as plain pools.
+     */
+    static ShardRoutingDataSource sharded(String store, MysqlRecord record, MetricsTrackerFactory metrics) {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(routed(store, record, metrics));
+        ShardingRecord sharding = record.sharding();
+        if (sharding != null && sharding.shards() != null) {
+            for (ShardRecord shard : sharding.shards()) {
+                shards.add(pooled(store + "-shard-" + shards.size() + "-pool", shard.url(),
+                        shard.username() != null ? shard.username() : record.username(),
+                        shard.password() != null ? shard.password() : record.password(),
+                        record, metrics));
+            }
+        }
+        return new ShardRoutingDataSource(store, shards);
+    }
+
+    private static DataSource routed(String store, DataSourceRecord record, MetricsTrackerFactory metrics) {
+        DataSource primary = pooled(store + "-pool", record.url(), record.username(), record.password(),
+                record, metrics);
+        ReplicationRecord replication = record.replication();
+        if (replication == null || replication.replicas() == null || replication.replicas().isEmpty()) {
+            return primary;
+        }
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (ReplicaRecord replica : replication.replicas()) {
+            replicas.add(pooled(store + "-replica-" + (replicas.size() + 1) + "-pool", replica.url(),
+                    replica.username() != null ? replica.username() : record.username(),
+                    replica.password() != null ? replica.password() : record.password(),
+                    record, metrics));
+        }
+        Duration healthCheckInterval = replication.healthCheckInterval() != null
+                ? replication.healthCheckInterval() : DEFAULT_HEALTH_CHECK_INTERVAL;
+        return new ReplicaRoutingDataSource(store, primary, replicas, healthCheckInterval,
+                replication.readYourWrites()).lazy();
+    }
+
+    static DataSource pooled(String poolName, String url, String username, String password,
+                             DataSourceRecord record, MetricsTrackerFactory metrics) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(record.driverClassName());
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMetricsTrackerFactory(metrics);
+        // don't connect while the context starts, an unreachable database only fails its own store's bootstrap
+        config.setInitializationFailTimeout(-1);
+
+        PoolRecord pool = record.pool();
+        if (pool != null) {
+            if (pool.maximumPoolSize() != null) config.setMaximumPoolSize(pool.maximumPoolSize());
+            if (pool.minimumIdle() != null) config.setMinimumIdle(pool.minimumIdle());
+            if (pool.connectionTimeout() != null) config.setConnectionTimeout(pool.connectionTimeout());
+            if (pool.idleTimeout() != null) config.setIdleTimeout(pool.idleTimeout());
+            if (pool.maxLifetime() != null) config.setMaxLifetime(pool.maxLifetime());
+            if (pool.connectTimeout() != null) connectTimeout(config, record.driverClassName(), pool.connectTimeout());
+            // vendor driver flags: statement caching, batch rewriting, ...
+            if (pool.dataSourceProperties() != null) pool.dataSourceProperties().forEach(config::addDataSourceProperty);
+        }
+        HikariDataSource dataSource = new HikariDataSource(config);
+
+        CircuitBreakerRecord breaker = record.circuitBreaker();
+        CircuitBreakerDataSource guarded = new CircuitBreakerDataSource(poolName, dataSource,
+                breaker != null && breaker.enabled(),
+                breaker != null && breaker.failureThreshold() != null
+                        ? breaker.failureThreshold() : DEFAULT_FAILURE_THRESHOLD,
+                breaker != null && breaker.openDuration() != null ? breaker.openDuration() : DEFAULT_OPEN_DURATION,
+                pool != null ? pool.queryTimeout() : null);
+        int maxConcurrency = pool != null && pool.maxConcurrency() != null
+                ? pool.maxConcurrency() : defaultMaxConcurrency(config.getMaximumPoolSize());
+        return new BulkheadDataSource(poolName, guarded, maxConcurrency,
+                Duration.ofMillis(config.getConnectionTimeout()));
+    }
+
+    /**
+     * A quarter of the pool is kept out of the bulkhead. Callers then queue only in the bulkhead, for up to
+     * {@code connectionTimeout}, and one that got a permit finds an idle connection rather than waiting the same
+     * timeout again in HikariCP while it replaces a retired one.
+     */
+    static int defaultMaxConcurrency(int maximumPoolSize) {
+        return Math.max(1, maximumPoolSize - maximumPoolSize / 4);
+    }
+
+    /**
+     * Bounds how long the driver dials a new connection, so the pool doesn't wait on the TCP stack when the host
+     * is gone. Every driver calls the setting something else; others keep their default.
+     */
+    private static void connectTimeout(HikariConfig config, String driverClassName, Duration timeout) {
+        switch (driverClassName) {
+            case "com.mysql.cj.jdbc.Driver" -> config.addDataSourceProperty("connectTimeout",
+                    String.valueOf(timeout.toMillis()));
+            case "org.postgresql.Driver" -> config.addDataSourceProperty("connectTimeout",
+                    String.valueOf(Math.max(1, timeout.toSeconds())));
+            case "oracle.jdbc.OracleDriver" -> config.addDataSourceProperty("oracle.net.CONNECT_TIMEOUT",
+                    String.valueOf(timeout.toMillis()));
+            default -> {
+            }
+        }
+    }
+
+    static TableVersionCounter tableVersion(DataSource dataSource, String table, DataSourceProperties properties) {
+        TableVersionRecord tableVersions = properties.getTableVersions();
+        return new TableVersionCounter(dataSource, table,
+                tableVersions != null && tableVersions.refreshInterval() != null
+                        ? tableVersions.refreshInterval() : DEFAULT_VERSION_REFRESH_INTERVAL);
+    }
+
+    static Properties jdbcProperties(DataSourceRecord record) {
+        Properties properties = new Properties();
+        properties.put("hibernate.jdbc.batch_size", String.valueOf(record.jdbcBatchSize()));
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
+        properties.put("hibernate.jdbc.fetch_size", String.valueOf(record.jdbcFetchSize()));
+        // IN lists padded to a power of two, so chunks of any size share a few statement shapes
+        properties.put("hibernate.query.in_clause_parameter_padding", "true");
+
+        return properties;
+    }
+}
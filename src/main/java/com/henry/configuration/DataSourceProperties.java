@@ -1,8 +1,11 @@
 package com.henry.configuration;
 
+import com.henry.record.JsonCacheRecord;
 import com.henry.record.OracleRecord;
 import com.henry.record.PostgreRecord;
 import com.henry.record.MysqlRecord;
+import com.henry.record.SqlAccountingRecord;
+import com.henry.record.TableVersionRecord;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -15,5 +18,8 @@ public class DataSourceProperties {
    private MysqlRecord mysql;
    private PostgreRecord postgres;
    private OracleRecord oracle;
+   private SqlAccountingRecord sqlAccounting;
+   private TableVersionRecord tableVersions;
+   private JsonCacheRecord jsonCache;
 
 }
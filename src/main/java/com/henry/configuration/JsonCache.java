@@ -0,0 +1,130 @@
+package com.henry.configuration;
+
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.JsonCacheRecord;
+import com.henry.record.JsonCacheStatsRecord;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serialized JSON responses, kept in direct buffers outside the heap so large lists are neither serialized again
+ * nor scanned by the garbage collector while they are unchanged. Entries are keyed by table and query and tagged
+ * with the table's version: an entry of an older version is a miss, and a newer version from a save or from
+ * another node drops the table's entries at once. The least recently used entries are evicted to stay under
+ * {@code maxSize} bytes. Callers get a read-only view of an entry, which stays valid after it is evicted.
+ */
+@Component
+public class JsonCache {
+
+    static final DataSize DEFAULT_MAX_SIZE = DataSize.ofMegabytes(64);
+
+    private record Key(String table, String query) {
+    }
+
+    private record Entry(long version, ByteBuffer json) {
+    }
+
+    private final boolean enabled;
+    private final long maxBytes;
+    // guarded by itself, in access order for the eviction
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public JsonCache(DataSourceProperties dsProperties, MeterRegistry registry) {
+        JsonCacheRecord record = dsProperties.getJsonCache();
+        this.enabled = record != null && record.enabled();
+        this.maxBytes = (record != null && record.maxSize() != null ? record.maxSize() : DEFAULT_MAX_SIZE).toBytes();
+        Gauge.builder("json.cache.bytes", this, cache -> cache.stats().bytes()).register(registry);
+        Gauge.builder("json.cache.entries", this, cache -> cache.stats().entries()).register(registry);
+        FunctionCounter.builder("json.cache.hits", hits, LongAdder::sum).register(registry);
+        FunctionCounter.builder("json.cache.misses", misses, LongAdder::sum).register(registry);
+        FunctionCounter.builder("json.cache.evictions", evictions, LongAdder::sum).register(registry);
+    }
+
+    /** Drops the entries of {@code table} whenever its version moves on. */
+    public void watch(String table, TableVersionCounter tableVersion) {
+        tableVersion.onChange(version -> invalidate(table));
+    }
+
+    /** The JSON cached for {@code query} on {@code table} at {@code version}, or {@code null}. */
+    public ByteBuffer get(String table, String query, long version) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(new Key(table, query));
+        }
+        if (entry == null || entry.version() != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.json().duplicate();
+    }
+
+    /**
+     * Caches {@code json} as the result of {@code query} on {@code table} at {@code version} and returns it as a
+     * buffer to write, off the heap if it was cached. {@code json} must have been read at {@code version} or
+     * later, as on the primary: rows from a replica behind it would be served for as long as the version holds.
+     */
+    public ByteBuffer put(String table, String query, long version, byte[] json) {
+        if (!enabled || json.length > maxBytes) {
+            return ByteBuffer.wrap(json).asReadOnlyBuffer();
+        }
+        ByteBuffer offHeap = ByteBuffer.allocateDirect(json.length).put(json).flip().asReadOnlyBuffer();
+        synchronized (entries) {
+            Entry previous = entries.put(new Key(table, query), new Entry(version, offHeap));
+            if (previous != null) {
+                bytes -= previous.json().capacity();
+            }
+            bytes += offHeap.capacity();
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().json().capacity();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return offHeap.duplicate();
+    }
+
+    public void invalidate(String table) {
+        synchronized (entries) {
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, Entry> entry = iterator.next();
+                if (entry.getKey().table().equals(table)) {
+                    bytes -= entry.getValue().json().capacity();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public JsonCacheStatsRecord stats() {
+        int size;
+        long used;
+        synchronized (entries) {
+            size = entries.size();
+            used = bytes;
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return new JsonCacheStatsRecord(enabled, size, used, maxBytes, hitCount, missCount,
+                requests == 0 ? 1.0 : (double) hitCount / requests, evictions.sum());
+    }
+}
@@ -0,0 +1,82 @@
+package com.henry.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JpaTransactionManager} that times every transaction it begins, from begin to commit or rollback, as
+ * {@code datasource.transaction} tagged with the store and the outcome, and counts rollbacks.
+ */
+public class MeteredTransactionManager extends JpaTransactionManager {
+
+    private final String store;
+    private final MeterRegistry registry;
+    private final Counter rollbacks;
+    private final Map<Object, Long> started = new ConcurrentHashMap<>();
+
+    public MeteredTransactionManager(String store, MeterRegistry registry) {
+        this.store = store;
+        this.registry = registry;
+        this.rollbacks = Counter.builder("datasource.transaction.rollbacks")
+                .description("Transactions rolled back")
+                .tag("datasource", store)
+                .register(registry);
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        started.put(transaction, System.nanoTime());
+        super.doBegin(transaction, definition);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        boolean committed = false;
+        try {
+            super.doCommit(status);
+            committed = true;
+        } finally {
+            record(status.getTransaction(), committed ? "commit" : "failed");
+        }
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        rollbacks.increment();
+        try {
+            super.doRollback(status);
+        } finally {
+            record(status.getTransaction(), "rollback");
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        started.remove(transaction);
+        super.doCleanupAfterCompletion(transaction);
+    }
+
+    private void record(Object transaction, String outcome) {
+        Long start = started.remove(transaction);
+        if (start == null) {
+            return;
+        }
+        Timer.builder("datasource.transaction")
+                .description("Transaction duration from begin to completion")
+                .tags("datasource", store, "outcome", outcome)
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
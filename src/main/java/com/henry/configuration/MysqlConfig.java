@@ -1,71 +1,190 @@
 package com.henry.configuration;
 
+import com.google.common.cache.Cache;
+import com.henry.model.id.IdBlockPool;
+import com.henry.model.id.TableIdBlocks;
+import com.henry.model.user.User;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.ShardingRecord;
+import com.henry.record.UserRecord;
+import com.henry.service.BatchLoader;
+import com.henry.service.DefaultService;
+import com.henry.service.GroupCommitter;
+import com.henry.service.RecordService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.spi.PersistenceUnitInfo;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.relational.SchemaManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.data.repository.config.BootstrapMode;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.Properties;
+import java.util.concurrent.Executors;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
-import java.util.Properties;
 
 @Configuration
 @EnableJpaRepositories(
         basePackages = "com.henry.repository.user",
         entityManagerFactoryRef = "userEntityManager",
-        transactionManagerRef = "userTransactionManager"
+        transactionManagerRef = "userTransactionManager",
+        // repositories are created on first use, so they don't wait for the factory at startup
+        bootstrapMode = BootstrapMode.LAZY
 )
 public class MysqlConfig {
 
     @Autowired
     private DataSourceProperties dsProperties;
 
+    @Autowired
+    private PoolMetrics poolMetrics;
+
+    @Autowired
+    private NearCaches nearCaches;
+
+    @Autowired
+    private ConcurrencyLimits concurrencyLimits;
+
+    @Autowired
+    private JsonCache jsonCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StoreReadiness storeReadiness;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
     @Bean
     @Primary
     public LocalContainerEntityManagerFactoryBean userEntityManager()
             throws NamingException {
         LocalContainerEntityManagerFactoryBean em
-                = new LocalContainerEntityManagerFactoryBean();
+                = new LocalContainerEntityManagerFactoryBean() {
+            @Override
+            protected void postProcessEntityManagerFactory(EntityManagerFactory emf, PersistenceUnitInfo pui) {
+                createSchemaOnShards(emf);
+            }
+        };
         em.setDataSource(userDataSource());
-        em.setPackagesToScan("com.henry.model.user");
+        em.setManagedTypes(userManagedTypes());
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(userHibernateProperties());
+        em.setPersistenceUnitName("mysql");
+        em.setBootstrapExecutor(storeReadiness.bootstrapExecutor("mysql"));
 
         return em;
     }
 
+    // a bean rather than setPackagesToScan, so the aot profile scans the entities at build time
+    @Bean
+    public PersistenceManagedTypes userManagedTypes() {
+        return new PersistenceManagedTypesScanner(resourceLoader).scan("com.henry.model.user", "com.henry.model.version");
+    }
+
     @Bean
     @Primary
     public DataSource userDataSource() throws IllegalArgumentException, NamingException {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(dsProperties.getMysql().driverClassName());
-        dataSource.setUrl(dsProperties.getMysql().url());
-        dataSource.setUsername(dsProperties.getMysql().username());
-        dataSource.setPassword(dsProperties.getMysql().password());
+        return new SqlAccountingDataSource("mysql", userShards().lazy());
+    }
 
-        return dataSource;
+    @Bean
+    public ShardRoutingDataSource userShards() {
+        return DataSourceFactory.sharded("mysql", dsProperties.getMysql(), poolMetrics);
+    }
+
+    @Bean
+    public IdBlockPool userIds() {
+        ShardingRecord sharding = dsProperties.getMysql().sharding();
+        int blockSize = sharding != null && sharding.idBlockSize() != null
+                ? sharding.idBlockSize() : dsProperties.getMysql().jdbcBatchSize();
+        // ids come from shard 0 only, so they are unique across all shards
+        return new IdBlockPool(new TableIdBlocks(userShards().shard(0), "user_id_blocks", "users", blockSize,
+                "select max(id) from users"), blockSize,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("users-id-refill-", 0).factory()));
+    }
+
+    @Bean
+    public TableVersionCounter userTableVersion() {
+        // on shard 0 like the id blocks, one counter for the whole sharded table
+        TableVersionCounter tableVersion = DataSourceFactory.tableVersion(userShards().shard(0), "users", dsProperties);
+        jsonCache.watch("users", tableVersion);
+        return tableVersion;
+    }
+
+    @Bean
+    public Cache<Long, UserRecord> userCache() {
+        return nearCaches.create("users", dsProperties.getMysql().cache());
+    }
+
+    @Bean
+    public ConcurrencyLimiter userLimiter() {
+        return concurrencyLimits.create("mysql", dsProperties.getMysql().limiter());
+    }
+
+    @Bean
+    public GroupCommitter<User> userGroupCommitter(DefaultService<User, Long> userService) {
+        // ids assigned to a failed group are kept, so a row whose shard did commit is merged, not inserted twice
+        return GroupCommitter.forStore("users", userService, User::getId, (user, originalId) -> { },
+                dsProperties.getMysql());
+    }
+
+    @Bean
+    public BatchLoader<UserRecord> userBatchLoader(RecordService<UserRecord, Long> userService) {
+        return BatchLoader.forStore("users", userService, UserRecord::id, dsProperties.getMysql());
     }
 
     private Properties userHibernateProperties() {
         Properties properties = new Properties();
         properties.put("hibernate.hbm2ddl.auto",dsProperties.getMysql().ddlAuto());
+        properties.putAll(DataSourceFactory.jdbcProperties(dsProperties.getMysql()));
 
         return properties;
     }
 
+    // hbm2ddl only reaches shard 0, where the data source goes when no shard is bound; repeat it on the others
+    private void createSchemaOnShards(EntityManagerFactory emf) {
+        SchemaManager schema = emf.unwrap(SessionFactoryImplementor.class).getSchemaManager();
+        ShardRoutingDataSource shards = userShards();
+        for (int shard = 1; shard < shards.shardCount(); shard++) {
+            shards.on(shard, () -> {
+                switch (dsProperties.getMysql().ddlAuto()) {
+                    case "create", "create-drop" -> {
+                        schema.dropMappedObjects(false);
+                        schema.exportMappedObjects(false);
+                    }
+                    // creates what's missing, existing tables aren't altered
+                    case "create-only", "update" -> schema.exportMappedObjects(false);
+                    case "validate" -> schema.validateMappedObjects();
+                    default -> {
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
     @Primary
     @Bean
     public PlatformTransactionManager userTransactionManager() throws NamingException {
-        final JpaTransactionManager transactionManager = new JpaTransactionManager();
+        final JpaTransactionManager transactionManager = new MeteredTransactionManager("mysql", meterRegistry);
         transactionManager.setEntityManagerFactory(userEntityManager().getObject());
         return transactionManager;
     }
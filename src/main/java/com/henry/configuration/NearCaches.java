@@ -0,0 +1,50 @@
+package com.henry.configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.henry.record.CacheRecord;
+import com.henry.record.CacheStatsRecord;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the bounded findRecordById caches of the three stores and keeps them around to report their stats.
+ */
+@Component
+public class NearCaches {
+
+    static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    private final Map<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    public <K, V> Cache<K, V> create(String name, CacheRecord record) {
+        long maximumSize = record != null && record.maximumSize() != null ? record.maximumSize() : DEFAULT_MAXIMUM_SIZE;
+        Duration ttl = record != null && record.ttl() != null ? record.ttl() : DEFAULT_TTL;
+
+        Cache<K, V> cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        caches.put(name, cache);
+        return cache;
+    }
+
+    public List<CacheStatsRecord> snapshot() {
+        return caches.entrySet().stream()
+                .map(entry -> {
+                    CacheStats stats = entry.getValue().stats();
+                    return new CacheStatsRecord(entry.getKey(), entry.getValue().size(), stats.hitCount(),
+                            stats.missCount(), stats.hitRate(), stats.evictionCount());
+                })
+                .sorted(Comparator.comparing(CacheStatsRecord::cache))
+                .toList();
+    }
+}
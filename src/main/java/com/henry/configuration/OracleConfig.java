@@ -1,60 +1,127 @@
 package com.henry.configuration;
 
+import com.google.common.cache.Cache;
+import com.henry.model.brand.Brand;
+import com.henry.model.id.BlockSequenceGenerator;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.BrandRecord;
+import com.henry.service.BatchLoader;
+import com.henry.service.DefaultService;
+import com.henry.service.GroupCommitter;
+import com.henry.service.RecordService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.data.repository.config.BootstrapMode;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.Properties;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
-import java.util.Properties;
 
 @Configuration
 @EnableJpaRepositories(
         basePackages = "com.henry.repository.brand",
         entityManagerFactoryRef = "brandEntityManager",
-        transactionManagerRef = "brandTransactionManager"
+        transactionManagerRef = "brandTransactionManager",
+        bootstrapMode = BootstrapMode.LAZY
 )
 public class OracleConfig {
 
     @Autowired
     private DataSourceProperties dsProperties;
 
+    @Autowired
+    private PoolMetrics poolMetrics;
+
+    @Autowired
+    private NearCaches nearCaches;
+
+    @Autowired
+    private ConcurrencyLimits concurrencyLimits;
+
+    @Autowired
+    private JsonCache jsonCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StoreReadiness storeReadiness;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
     @Bean
     public LocalContainerEntityManagerFactoryBean brandEntityManager()
             throws NamingException {
         LocalContainerEntityManagerFactoryBean em
                 = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(brandDataSource());
-        em.setPackagesToScan("com.henry.model.brand");
+        em.setManagedTypes(brandManagedTypes());
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(brandHibernateProperties());
+        em.setPersistenceUnitName("oracle");
+        em.setBootstrapExecutor(storeReadiness.bootstrapExecutor("oracle"));
 
         return em;
     }
 
+    @Bean
+    public PersistenceManagedTypes brandManagedTypes() {
+        return new PersistenceManagedTypesScanner(resourceLoader).scan("com.henry.model.brand", "com.henry.model.version");
+    }
+
     @Bean
     public DataSource brandDataSource() throws IllegalArgumentException, NamingException {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(dsProperties.getOracle().driverClassName());
-        dataSource.setUrl(dsProperties.getOracle().url());
-        dataSource.setUsername(dsProperties.getOracle().username());
-        dataSource.setPassword(dsProperties.getOracle().password());
+        return DataSourceFactory.create("oracle", dsProperties.getOracle(), poolMetrics);
+    }
+
+    @Bean
+    public TableVersionCounter brandTableVersion() throws NamingException {
+        TableVersionCounter tableVersion = DataSourceFactory.tableVersion(brandDataSource(), "brands", dsProperties);
+        jsonCache.watch("brands", tableVersion);
+        return tableVersion;
+    }
+
+    @Bean
+    public Cache<Long, BrandRecord> brandCache() {
+        return nearCaches.create("brands", dsProperties.getOracle().cache());
+    }
+
+    @Bean
+    public ConcurrencyLimiter brandLimiter() {
+        return concurrencyLimits.create("oracle", dsProperties.getOracle().limiter());
+    }
 
-        return dataSource;
+    @Bean
+    public GroupCommitter<Brand> brandGroupCommitter(DefaultService<Brand, Long> brandService) {
+        return GroupCommitter.forStore("brands", brandService, Brand::getId, Brand::setId, dsProperties.getOracle());
+    }
+
+    @Bean
+    public BatchLoader<BrandRecord> brandBatchLoader(RecordService<BrandRecord, Long> brandService) {
+        return BatchLoader.forStore("brands", brandService, BrandRecord::id, dsProperties.getOracle());
     }
 
     private Properties brandHibernateProperties() {
         Properties properties = new Properties();
         properties.put("hibernate.hbm2ddl.auto", dsProperties.getOracle().ddlAuto());
+        properties.putAll(DataSourceFactory.jdbcProperties(dsProperties.getOracle()));
+        if (dsProperties.getOracle().idBlockSize() != null) {
+            properties.put(BlockSequenceGenerator.BLOCK_SIZE, String.valueOf(dsProperties.getOracle().idBlockSize()));
+        }
 
         return properties;
     }
@@ -62,7 +129,7 @@ public class OracleConfig {
 
     @Bean
     public PlatformTransactionManager brandTransactionManager() throws NamingException {
-        final JpaTransactionManager transactionManager = new JpaTransactionManager();
+        final JpaTransactionManager transactionManager = new MeteredTransactionManager("oracle", meterRegistry);
         transactionManager.setEntityManagerFactory(brandEntityManager().getObject());
         return transactionManager;
     }
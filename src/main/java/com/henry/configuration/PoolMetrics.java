@@ -0,0 +1,146 @@
+package com.henry.configuration;
+
+import com.henry.record.PoolStatsRecord;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects connection acquire time and utilization for every HikariCP pool created by the configs, and publishes
+ * them as {@code datasource.connection.*} meters tagged with the store and the pool.
+ */
+@Component
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    public PoolMetrics() {
+        this(new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public PoolMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Tracker tracker = new Tracker(poolName, poolStats, registry);
+        trackers.put(poolName, tracker);
+        return tracker;
+    }
+
+    public List<PoolStatsRecord> snapshot() {
+        return trackers.values().stream()
+                .map(Tracker::snapshot)
+                .sorted(Comparator.comparing(PoolStatsRecord::pool))
+                .toList();
+    }
+
+    static final class Tracker implements IMetricsTracker {
+
+        private final String poolName;
+        private final PoolStats poolStats;
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final LongAccumulator maxAcquireNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder usages = new LongAdder();
+        private final LongAdder usageMillis = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final Timer acquireTimer;
+        private final Timer usageTimer;
+        private final Counter timeoutCounter;
+
+        Tracker(String poolName, PoolStats poolStats, MeterRegistry registry) {
+            this.poolName = poolName;
+            this.poolStats = poolStats;
+
+            // pools are named <store>-pool or <store>-replica-<n>-pool by DataSourceFactory
+            int dash = poolName.indexOf('-');
+            Tags tags = Tags.of("datasource", dash < 0 ? poolName : poolName.substring(0, dash), "pool", poolName);
+            acquireTimer = Timer.builder("datasource.connection.acquire")
+                    .description("Time to borrow a connection from the pool")
+                    .tags(tags)
+                    .register(registry);
+            usageTimer = Timer.builder("datasource.connection.usage")
+                    .description("Time a connection was held before it went back to the pool")
+                    .tags(tags)
+                    .register(registry);
+            timeoutCounter = Counter.builder("datasource.connection.timeouts")
+                    .description("Borrows that timed out")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("datasource.connections.active", poolStats, PoolStats::getActiveConnections)
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("datasource.connections.idle", poolStats, PoolStats::getIdleConnections)
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("datasource.connections.pending", poolStats, PoolStats::getPendingThreads)
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+            acquireTimer.record(elapsedAcquiredNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usages.increment();
+            usageMillis.add(elapsedBorrowedMillis);
+            usageTimer.record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+            timeoutCounter.increment();
+        }
+
+        PoolStatsRecord snapshot() {
+            int active = poolStats.getActiveConnections();
+            int max = poolStats.getMaxConnections();
+            long acquired = acquisitions.sum();
+            long used = usages.sum();
+            return new PoolStatsRecord(
+                    poolName,
+                    active,
+                    poolStats.getIdleConnections(),
+                    poolStats.getTotalConnections(),
+                    poolStats.getPendingThreads(),
+                    max,
+                    max == 0 ? 0 : (double) active / max,
+                    acquired,
+                    acquired == 0 ? 0 : toMillis(acquireNanos.sum()) / acquired,
+                    toMillis(maxAcquireNanos.get()),
+                    timeouts.sum(),
+                    used == 0 ? 0 : (double) usageMillis.sum() / used);
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -1,67 +1,131 @@
 package com.henry.configuration;
 
+import com.google.common.cache.Cache;
+import com.henry.model.company.Company;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.CompanyRecord;
+import com.henry.service.BatchLoader;
+import com.henry.service.DefaultService;
+import com.henry.service.GroupCommitter;
+import com.henry.service.RecordService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.data.repository.config.BootstrapMode;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.Properties;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
-import java.util.Properties;
 
 @Configuration
 @EnableJpaRepositories(
         basePackages = "com.henry.repository.company",
         entityManagerFactoryRef = "companyEntityManager",
-        transactionManagerRef = "companyTransactionManager"
+        transactionManagerRef = "companyTransactionManager",
+        bootstrapMode = BootstrapMode.LAZY
 )
 public class PostgreConfig {
 
     @Autowired
     private DataSourceProperties dsProperties;
 
+    @Autowired
+    private PoolMetrics poolMetrics;
+
+    @Autowired
+    private NearCaches nearCaches;
+
+    @Autowired
+    private ConcurrencyLimits concurrencyLimits;
+
+    @Autowired
+    private JsonCache jsonCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StoreReadiness storeReadiness;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
     @Bean
     public LocalContainerEntityManagerFactoryBean companyEntityManager()
             throws NamingException {
         LocalContainerEntityManagerFactoryBean em
                 = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(companyDataSource());
-        em.setPackagesToScan("com.henry.model.company");
+        em.setManagedTypes(companyManagedTypes());
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(companyHibernateProperties());
+        em.setPersistenceUnitName("postgres");
+        em.setBootstrapExecutor(storeReadiness.bootstrapExecutor("postgres"));
 
         return em;
     }
 
+    @Bean
+    public PersistenceManagedTypes companyManagedTypes() {
+        return new PersistenceManagedTypesScanner(resourceLoader).scan("com.henry.model.company", "com.henry.model.version");
+    }
+
     @Bean
     public DataSource companyDataSource() throws IllegalArgumentException, NamingException {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(dsProperties.getPostgres().driverClassName());
-        dataSource.setUrl(dsProperties.getPostgres().url());
-        dataSource.setUsername(dsProperties.getPostgres().username());
-        dataSource.setPassword(dsProperties.getPostgres().password());
+        return DataSourceFactory.create("postgres", dsProperties.getPostgres(), poolMetrics);
+    }
+
+    @Bean
+    public TableVersionCounter companyTableVersion() throws NamingException {
+        TableVersionCounter tableVersion = DataSourceFactory.tableVersion(companyDataSource(), "companies",
+                dsProperties);
+        jsonCache.watch("companies", tableVersion);
+        return tableVersion;
+    }
+
+    @Bean
+    public Cache<Long, CompanyRecord> companyCache() {
+        return nearCaches.create("companies", dsProperties.getPostgres().cache());
+    }
+
+    @Bean
+    public ConcurrencyLimiter companyLimiter() {
+        return concurrencyLimits.create("postgres", dsProperties.getPostgres().limiter());
+    }
 
-        return dataSource;
+    @Bean
+    public GroupCommitter<Company> companyGroupCommitter(DefaultService<Company, Long> companyService) {
+        return GroupCommitter.forStore("companies", companyService, Company::getId, Company::setId, dsProperties.getPostgres());
+    }
+
+    @Bean
+    public BatchLoader<CompanyRecord> companyBatchLoader(RecordService<CompanyRecord, Long> companyService) {
+        return BatchLoader.forStore("companies", companyService, CompanyRecord::id, dsProperties.getPostgres());
     }
 
     private Properties companyHibernateProperties() {
         Properties properties = new Properties();
         properties.put("hibernate.hbm2ddl.auto", dsProperties.getPostgres().ddlAuto());
+        properties.putAll(DataSourceFactory.jdbcProperties(dsProperties.getPostgres()));
 
         return properties;
     }
 
     @Bean
     public PlatformTransactionManager companyTransactionManager() throws NamingException {
-        final JpaTransactionManager transactionManager = new JpaTransactionManager();
+        final JpaTransactionManager transactionManager = new MeteredTransactionManager("postgres", meterRegistry);
         transactionManager.setEntityManagerFactory(companyEntityManager().getObject());
         return transactionManager;
     }
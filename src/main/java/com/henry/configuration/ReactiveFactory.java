@@ -0,0 +1,59 @@
+package com.henry.configuration;
+
+import com.henry.record.DataSourceRecord;
+import com.henry.record.PoolRecord;
+import com.henry.record.ReactiveRecord;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+
+import java.time.Duration;
+
+/**
+ * Builds the R2DBC pools and repositories of a store's reactive stack from its {@link ReactiveRecord}. The pool
+ * takes its limits from the store's JDBC {@link PoolRecord}: {@code maximumPoolSize} unless {@code reactive.maxSize}
+ * is set, {@code connectionTimeout} to acquire a connection and {@code idleTimeout}. Repositories are created from
+ * a template rather than scanned, the user shards need one per shard.
+ */
+final class ReactiveFactory {
+
+    static final int DEFAULT_MAX_SIZE = 10;
+
+    private ReactiveFactory() {
+    }
+
+    static ConnectionPool pooled(String poolName, String url, String username, String password,
+                                 DataSourceRecord record) {
+        if (url == null) {
+            throw new IllegalStateException(poolName + " needs an r2dbc url, set reactive.url");
+        }
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (username != null) options.option(ConnectionFactoryOptions.USER, username);
+        if (password != null) options.option(ConnectionFactoryOptions.PASSWORD, password);
+
+        ReactiveRecord reactive = record.reactive();
+        PoolRecord pool = record.pool();
+        int maxSize = reactive.maxSize() != null ? reactive.maxSize()
+                : pool != null && pool.maximumPoolSize() != null ? pool.maximumPoolSize() : DEFAULT_MAX_SIZE;
+        ConnectionPoolConfiguration.Builder config = ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .name(poolName)
+                // connections are opened on demand, an unreachable database doesn't fail startup
+                .initialSize(0)
+                .maxSize(maxSize);
+        if (pool != null && pool.connectionTimeout() != null) {
+            config.maxAcquireTime(Duration.ofMillis(pool.connectionTimeout()));
+        }
+        if (pool != null && pool.idleTimeout() != null) {
+            config.maxIdleTime(Duration.ofMillis(pool.idleTimeout()));
+        }
+        return new ConnectionPool(config.build());
+    }
+
+    static <T> T repository(R2dbcEntityTemplate template, Class<T> repositoryInterface) {
+        return new R2dbcRepositoryFactory(template).getRepository(repositoryInterface);
+    }
+}
@@ -0,0 +1,41 @@
+package com.henry.configuration;
+
+import com.henry.record.MysqlRecord;
+import com.henry.record.ShardRecord;
+import io.r2dbc.pool.ConnectionPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The reactive stack of the users store, next to {@link MysqlConfig}: one R2DBC pool per shard, shard 0 on
+ * {@code reactive.url}, the others on the {@code reactiveUrl} of their {@code sharding.shards} entry. New users
+ * take their ids from {@code userIds}, like the JPA stack.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.mysql.reactive.enabled", havingValue = "true")
+public class ReactiveMysqlConfig {
+
+    @Autowired
+    private DataSourceProperties dsProperties;
+
+    @Bean
+    public ReactiveShards userReactiveShards() {
+        MysqlRecord mysql = dsProperties.getMysql();
+        List<ConnectionPool> pools = new ArrayList<>();
+        pools.add(ReactiveFactory.pooled("mysql-r2dbc-pool", mysql.reactive().url(), mysql.username(),
+                mysql.password(), mysql));
+        if (mysql.sharding() != null && mysql.sharding().shards() != null) {
+            for (ShardRecord shard : mysql.sharding().shards()) {
+                pools.add(ReactiveFactory.pooled("mysql-r2dbc-shard-" + pools.size() + "-pool", shard.reactiveUrl(),
+                        shard.username() != null ? shard.username() : mysql.username(),
+                        shard.password() != null ? shard.password() : mysql.password(), mysql));
+            }
+        }
+        return new ReactiveShards(pools);
+    }
+}
@@ -0,0 +1,50 @@
+package com.henry.configuration;
+
+import com.henry.model.id.IdBlockPool;
+import com.henry.model.id.ReactiveSequenceBlocks;
+import com.henry.record.OracleRecord;
+import com.henry.repository.reactive.ReactiveBrandRepository;
+import io.r2dbc.pool.ConnectionPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+
+import java.util.concurrent.Executors;
+
+/** The reactive stack of the brands store, next to {@link OracleConfig}, over the Oracle R2DBC adapter. */
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.oracle.reactive.enabled", havingValue = "true")
+public class ReactiveOracleConfig {
+
+    @Autowired
+    private DataSourceProperties dsProperties;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool brandConnectionFactory() {
+        OracleRecord oracle = dsProperties.getOracle();
+        return ReactiveFactory.pooled("oracle-r2dbc-pool", oracle.reactive().url(), oracle.username(),
+                oracle.password(), oracle);
+    }
+
+    @Bean
+    public R2dbcEntityTemplate brandR2dbcTemplate() {
+        return new R2dbcEntityTemplate(brandConnectionFactory());
+    }
+
+    @Bean
+    public ReactiveBrandRepository reactiveBrandRepository() {
+        return ReactiveFactory.repository(brandR2dbcTemplate(), ReactiveBrandRepository.class);
+    }
+
+    @Bean
+    public IdBlockPool brandReactiveIds() {
+        // the block size BlockSequenceGenerator reads brands_seq with, see OracleConfig, pooled-lo: each value starts a block
+        Integer idBlockSize = dsProperties.getOracle().idBlockSize();
+        int blockSize = idBlockSize != null ? idBlockSize : 1;
+        return new IdBlockPool(new ReactiveSequenceBlocks(brandConnectionFactory(),
+                "select brands_seq.nextval from dual", blockSize, false, "select max(id) from brands"), blockSize,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("brands-id-refill-", 0).factory()));
+    }
+}
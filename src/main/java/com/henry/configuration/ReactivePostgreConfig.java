@@ -0,0 +1,51 @@
+package com.henry.configuration;
+
+import com.henry.model.id.IdBlockPool;
+import com.henry.model.id.ReactiveSequenceBlocks;
+import com.henry.record.PostgreRecord;
+import com.henry.repository.reactive.ReactiveCompanyRepository;
+import io.r2dbc.pool.ConnectionPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+
+import java.util.concurrent.Executors;
+
+/** The reactive stack of the companies store, next to {@link PostgreConfig}. */
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.postgres.reactive.enabled", havingValue = "true")
+public class ReactivePostgreConfig {
+
+    // allocationSize of companies_seq on Company
+    private static final int COMPANY_ID_BLOCK = 50;
+
+    @Autowired
+    private DataSourceProperties dsProperties;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool companyConnectionFactory() {
+        PostgreRecord postgres = dsProperties.getPostgres();
+        return ReactiveFactory.pooled("postgres-r2dbc-pool", postgres.reactive().url(), postgres.username(),
+                postgres.password(), postgres);
+    }
+
+    @Bean
+    public R2dbcEntityTemplate companyR2dbcTemplate() {
+        return new R2dbcEntityTemplate(companyConnectionFactory());
+    }
+
+    @Bean
+    public ReactiveCompanyRepository reactiveCompanyRepository() {
+        return ReactiveFactory.repository(companyR2dbcTemplate(), ReactiveCompanyRepository.class);
+    }
+
+    @Bean
+    public IdBlockPool companyReactiveIds() {
+        // Hibernate reads the sequence with its pooled optimizer, each value ends a block
+        return new IdBlockPool(new ReactiveSequenceBlocks(companyConnectionFactory(),
+                "select nextval('companies_seq')", COMPANY_ID_BLOCK, true, null), COMPANY_ID_BLOCK,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("companies-id-refill-", 0).factory()));
+    }
+}
@@ -0,0 +1,46 @@
+package com.henry.configuration;
+
+import io.r2dbc.pool.ConnectionPool;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+
+import java.util.List;
+
+/**
+ * The R2DBC pools of a sharded store, in the order of the {@link ShardRoutingDataSource} shards, so a row is on
+ * the shard {@link ShardRoutingDataSource#shardOf} its id on both stacks.
+ */
+public class ReactiveShards implements AutoCloseable {
+
+    private final List<ConnectionPool> pools;
+    private final List<R2dbcEntityTemplate> templates;
+
+    public ReactiveShards(List<ConnectionPool> pools) {
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("needs at least one shard");
+        }
+        this.pools = List.copyOf(pools);
+        this.templates = pools.stream().map(R2dbcEntityTemplate::new).toList();
+    }
+
+    public int shardCount() {
+        return pools.size();
+    }
+
+    public ConnectionPool pool(int shard) {
+        return pools.get(shard);
+    }
+
+    public R2dbcEntityTemplate template(int shard) {
+        return templates.get(shard);
+    }
+
+    /** A repository per shard, created over the shard's template. */
+    public <T> List<T> repositories(Class<T> repositoryInterface) {
+        return templates.stream().map(template -> ReactiveFactory.repository(template, repositoryInterface)).toList();
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(ConnectionPool::dispose);
+    }
+}
@@ -0,0 +1,171 @@
+package com.henry.configuration;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections of read-only transactions to the replicas (round robin over the healthy ones) and
+ * everything else to the primary. Replicas that fail a connect or the periodic {@code isValid} probe are
+ * skipped until a later probe succeeds; with no healthy replica left, reads fall back to the primary.
+ * When {@code readYourWrites} is set, reads stay on the primary for that long after the last write so
+ * replication lag can't hide a fresh row. Reads run through {@link #onPrimary} stay on the primary as well.
+ * <p>
+ * Must be used through {@link #lazy()}: JPA opens the connection before Spring marks the transaction
+ * read-only, so the routing decision has to wait for the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    // inherited, so reads fanned out to other threads stay on the primary too
+    private static final InheritableThreadLocal<Boolean> PRIMARY_READS = new InheritableThreadLocal<>();
+
+    private final String name;
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long readYourWritesNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong lastWrite = new AtomicLong(System.nanoTime() - Long.MAX_VALUE / 2);
+    private final ScheduledExecutorService healthCheck;
+
+    public ReplicaRoutingDataSource(String name, DataSource primary, List<DataSource> replicas,
+                                    Duration healthCheckInterval, Duration readYourWrites) {
+        this.name = name;
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.readYourWritesNanos = readYourWrites == null ? 0 : readYourWrites.toNanos();
+        this.healthCheck = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name(name + "-replica-health").factory());
+        long interval = healthCheckInterval.toMillis();
+        healthCheck.scheduleWithFixedDelay(this::probeReplicas, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public DataSource lazy() {
+        return new Lazy(this);
+    }
+
+    /**
+     * Runs {@code action} with the reads of every store on its primary, for a result that must be at least as
+     * new as something read from the primary before it, such as the table version an ETag is made of.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (PRIMARY_READS.get() != null) {
+            return action.get();
+        }
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY_READS.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (readOnly && !withinReadYourWrites() && PRIMARY_READS.get() == null) {
+            Connection replica = replicaConnection();
+            if (replica != null) {
+                return replica;
+            }
+        } else if (!readOnly && TransactionSynchronizationManager.isActualTransactionActive()) {
+            lastWrite.set(System.nanoTime());
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException(name + " routes by transaction, not by credentials");
+    }
+
+    public long healthyReplicas() {
+        return replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void close() throws Exception {
+        healthCheck.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private boolean withinReadYourWrites() {
+        return readYourWritesNanos > 0 && System.nanoTime() - lastWrite.get() < readYourWritesNanos;
+    }
+
+    private Connection replicaConnection() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                logger.warn(name + " - replica excluded after failed connect: " + e.getMessage());
+                replica.healthy = false;
+            }
+        }
+        return null;
+    }
+
+    private void probeReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(1);
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                logger.info(name + " - replica " + (healthy ? "back in rotation" : "excluded by health check"));
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    private static final class Replica {
+
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+
+    private static final class Lazy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final ReplicaRoutingDataSource router;
+
+        private Lazy(ReplicaRoutingDataSource router) {
+            super(router);
+            this.router = router;
+        }
+
+        @Override
+        public void close() throws Exception {
+            router.close();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.henry.configuration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+/**
+ * Times every repository call as {@code datasource.query} and records the rows it returned as
+ * {@code datasource.query.rows}, both tagged with the store, repository and method. The store is the one of the
+ * repository's {@link MeteredTransactionManager}, so it follows the {@code transactionManagerRef} of each config.
+ */
+@Component
+class RepositoryMetrics implements BeanPostProcessor {
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final ObjectProvider<MeterRegistry> registry;
+
+    RepositoryMetrics(ConfigurableListableBeanFactory beanFactory, ObjectProvider<MeterRegistry> registry) {
+        this.beanFactory = beanFactory;
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean
+                && beanFactory.containsBeanDefinition(beanName)) {
+            Object transactionManager = beanFactory.getBeanDefinition(beanName).getPropertyValues()
+                    .get("transactionManager");
+            if (transactionManager instanceof String name) {
+                factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                        (proxy, information) -> proxy.addAdvice(new Interceptor(name,
+                                information.getRepositoryInterface().getSimpleName()))));
+            }
+        }
+        return bean;
+    }
+
+    private final class Interceptor implements MethodInterceptor {
+
+        private final String transactionManager;
+        private final String repository;
+        private volatile String store;
+
+        Interceptor(String transactionManager, String repository) {
+            this.transactionManager = transactionManager;
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            String operation = invocation.getMethod().getName();
+            long start = System.nanoTime();
+            String outcome = "error";
+            try {
+                Object result = invocation.proceed();
+                outcome = "success";
+                long rows = invocation.getMethod().getReturnType() == void.class ? -1 : rows(result);
+                if (rows >= 0) {
+                    DistributionSummary.builder("datasource.query.rows")
+                            .description("Rows returned by a repository call")
+                            .tags("datasource", store(), "repository", repository, "operation", operation)
+                            .register(registry.getObject())
+                            .record(rows);
+                }
+                return result;
+            } finally {
+                Timer.builder("datasource.query")
+                        .description("Repository call duration")
+                        .tags("datasource", store(), "repository", repository, "operation", operation,
+                                "outcome", outcome)
+                        .register(registry.getObject())
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private String store() {
+            String resolved = store;
+            if (resolved == null) {
+                Object manager = beanFactory.getBean(transactionManager);
+                resolved = manager instanceof MeteredTransactionManager metered
+                        ? metered.getStore() : transactionManager;
+                store = resolved;
+            }
+            return resolved;
+        }
+    }
+
+    /** Rows in a repository result, or -1 for results that are not rows (counts, flags, lazy streams). */
+    static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Number || result instanceof Boolean || result instanceof Iterable<?>
+                || result instanceof BaseStream<?, ?>) {
+            return -1;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,125 @@
+package com.henry.configuration;
+
+import com.google.common.hash.Hashing;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections of the shard bound to the current thread by {@link #on}, shard 0 when none is.
+ * Rows live on {@link #shardOf} their id, a consistent hash of it over the configured shards. Nothing moves
+ * rows: a shard can't be added to a populated cluster without a rebalance, as the rows now hashed to it would
+ * no longer be found. Each shard has its own transactions: a transaction that has touched one shard can't reach
+ * another, {@link #on} fails instead of silently reading the wrong database.
+ * <p>
+ * Must be used through {@link #lazy()}: JPA opens the connection when the transaction begins, before the
+ * repository call that binds the shard.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final String name;
+    private final List<DataSource> shards;
+    private final ThreadLocal<Integer> current = new ThreadLocal<>();
+
+    public ShardRoutingDataSource(String name, List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException(name + " needs at least one shard");
+        }
+        this.name = name;
+        this.shards = List.copyOf(shards);
+    }
+
+    public DataSource lazy() {
+        return new Lazy(this);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    public int shardOf(long id) {
+        // murmur first: consistentHash expects well-mixed input, ids are sequential
+        return Hashing.consistentHash(Hashing.murmur3_128().hashLong(id), shards.size());
+    }
+
+    /** Runs {@code action} with connections going to {@code shard}. */
+    public <T> T on(int shard, Supplier<T> action) {
+        pin(shard);
+        Integer previous = current.get();
+        current.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Integer shard = current.get();
+        return shards.get(shard == null ? 0 : shard).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException(name + " routes by shard, not by credentials");
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private void pin(int shard) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Integer pinned = (Integer) TransactionSynchronizationManager.getResource(this);
+        if (pinned == null) {
+            TransactionSynchronizationManager.bindResource(this, shard);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ShardRoutingDataSource.this);
+                }
+            });
+        } else if (pinned != shard) {
+            throw new IllegalStateException(name + " - the current transaction is on shard " + pinned
+                    + ", shard " + shard + " needs a transaction of its own");
+        }
+    }
+
+    private static final class Lazy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final ShardRoutingDataSource router;
+
+        private Lazy(ShardRoutingDataSource router) {
+            super(router);
+            this.router = router;
+        }
+
+        @Override
+        public void close() throws Exception {
+            router.close();
+        }
+    }
+}
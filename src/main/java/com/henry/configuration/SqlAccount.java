@@ -0,0 +1,122 @@
+package com.henry.configuration;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Statements and database time of one HTTP request, per store and per SQL shape. The account is bound to the
+ * request thread and inherited by the threads it starts, such as the fan-out of the aggregate lookup, so it
+ * is updated concurrently.
+ */
+public final class SqlAccount {
+
+    private static final InheritableThreadLocal<SqlAccount> CURRENT = new InheritableThreadLocal<>();
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern LITERAL = Pattern.compile("'(?:[^']|'')*'|\\b\\d+\\b");
+
+    private final Map<String, Tally> byDatasource = new ConcurrentHashMap<>();
+    private final Map<Shape, Tally> byShape = new ConcurrentHashMap<>();
+
+    public static SqlAccount open() {
+        SqlAccount account = new SqlAccount();
+        CURRENT.set(account);
+        return account;
+    }
+
+    public static SqlAccount current() {
+        return CURRENT.get();
+    }
+
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    void record(String datasource, String sql, long nanos) {
+        byDatasource.computeIfAbsent(datasource, key -> new Tally()).add(nanos);
+        byShape.computeIfAbsent(new Shape(datasource, shape(sql)), key -> new Tally()).add(nanos);
+    }
+
+    public long statements() {
+        return byDatasource.values().stream().mapToLong(Tally::count).sum();
+    }
+
+    public Duration time() {
+        return Duration.ofNanos(byDatasource.values().stream().mapToLong(Tally::nanos).sum());
+    }
+
+    /** Statement count per store, in store order. */
+    public Map<String, Long> statementsByDatasource() {
+        return byDatasource.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().count(), Long::sum,
+                        TreeMap::new));
+    }
+
+    /** Database time per store, in store order. */
+    public Map<String, Duration> timeByDatasource() {
+        return byDatasource.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> Duration.ofNanos(entry.getValue().nanos()),
+                        Duration::plus, TreeMap::new));
+    }
+
+    /** SQL shapes run at least {@code threshold} times, the usual sign of an N+1 query, most frequent first. */
+    public List<String> repeated(int threshold) {
+        return byShape.entrySet().stream()
+                .filter(entry -> entry.getValue().count() >= threshold)
+                .sorted(Comparator.comparingLong((Map.Entry<Shape, Tally> entry) -> entry.getValue().count())
+                        .reversed())
+                .map(entry -> describe(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    /** The {@code limit} SQL shapes that took the most database time, slowest first. */
+    public List<String> slowest(int limit) {
+        return byShape.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Shape, Tally> entry) -> entry.getValue().nanos())
+                        .reversed())
+                .limit(limit)
+                .map(entry -> describe(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    /** Literals and bind lists folded away, so the same query with other values has the same shape. */
+    public static String shape(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = LITERAL.matcher(shape).replaceAll("?");
+        return IN_LIST.matcher(shape).replaceAll("in (...)");
+    }
+
+    private static String describe(Shape shape, Tally tally) {
+        return String.format("%s x%d %.1fms: %s", shape.datasource(), tally.count(), tally.nanos() / 1e6,
+                shape.sql());
+    }
+
+    private record Shape(String datasource, String sql) {
+    }
+
+    private static final class Tally {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        void add(long elapsedNanos) {
+            count.increment();
+            nanos.add(elapsedNanos);
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long nanos() {
+            return nanos.sum();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.henry.configuration;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times every statement executed on a store's connections and books it on the {@link SqlAccount} of the
+ * current request. Connections taken outside a request are handed out unwrapped.
+ */
+public class SqlAccountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final String datasource;
+
+    public SqlAccountingDataSource(String datasource, DataSource target) {
+        super(target);
+        this.datasource = datasource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return accounted(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return accounted(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection accounted(Connection connection) {
+        SqlAccount account = SqlAccount.current();
+        if (account == null) {
+            return connection;
+        }
+        return JdbcProxies.proxy(Connection.class, (proxy, method, args) -> {
+            Object result = JdbcProxies.forward(connection, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> JdbcProxies.proxy(Statement.class,
+                        new Executions(account, (Statement) result, null));
+                case "prepareStatement" -> JdbcProxies.proxy(PreparedStatement.class,
+                        new Executions(account, (Statement) result, (String) args[0]));
+                case "prepareCall" -> JdbcProxies.proxy(CallableStatement.class,
+                        new Executions(account, (Statement) result, (String) args[0]));
+                default -> result;
+            };
+        });
+    }
+
+    /** Times the {@code execute*} calls of one statement; plain statements carry their SQL in the call. */
+    private final class Executions implements InvocationHandler {
+
+        private final SqlAccount account;
+        private final Statement target;
+        private final String preparedSql;
+        private String batchSql;
+
+        Executions(SqlAccount account, Statement target, String preparedSql) {
+            this.account = account;
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("addBatch") && args != null && args.length == 1 && batchSql == null) {
+                batchSql = (String) args[0];
+            }
+            if (!name.startsWith("execute")) {
+                return JdbcProxies.forward(target, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text
+                    : preparedSql != null ? preparedSql : batchSql;
+            long start = System.nanoTime();
+            try {
+                return JdbcProxies.forward(target, method, args);
+            } finally {
+                account.record(datasource, sql != null ? sql : "<batch>", System.nanoTime() - start);
+            }
+        }
+    }
+}
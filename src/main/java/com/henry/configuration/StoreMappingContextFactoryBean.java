@@ -0,0 +1,94 @@
+package com.henry.configuration;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Metamodel;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.data.jpa.repository.config.JpaMetamodelMappingContextFactoryBean;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the {@code jpaMappingContext} shared by the repositories of the three stores. The stock factory bean reads
+ * the metamodel of every EntityManagerFactory, which waits for all of them to be built and fails if any of them
+ * failed, so the first repository of a ready store would be held back by the others. Here each store's metamodel
+ * is read through {@link StoreReadiness} and looks empty while the store isn't ready. Nothing in this application
+ * (auditing, Spring Data REST) relies on the mapping context knowing an entity.
+ */
+public class StoreMappingContextFactoryBean extends JpaMetamodelMappingContextFactoryBean {
+
+    private static final String BEAN_NAME = "jpaMappingContext";
+
+    private ApplicationContext applicationContext;
+
+    /** Swaps the bean class of the {@code jpaMappingContext} registered by {@code @EnableJpaRepositories}. */
+    @Component
+    static class Installer implements BeanFactoryPostProcessor {
+
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+            if (beanFactory.containsBeanDefinition(BEAN_NAME)) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(BEAN_NAME);
+                definition.setBeanClassName(StoreMappingContextFactoryBean.class.getName());
+            }
+        }
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        super.setApplicationContext(applicationContext);
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    protected JpaMetamodelMappingContext createInstance() {
+        StoreReadiness readiness = applicationContext.getBean(StoreReadiness.class);
+        Set<Metamodel> metamodels = BeanFactoryUtils
+                .beansOfTypeIncludingAncestors(applicationContext, EntityManagerFactory.class).values().stream()
+                .map(emf -> whenReady(emf, readiness))
+                .collect(Collectors.toUnmodifiableSet());
+
+        JpaMetamodelMappingContext context = new JpaMetamodelMappingContext(metamodels);
+        context.initialize();
+        return context;
+    }
+
+    private static Metamodel whenReady(EntityManagerFactory emf, StoreReadiness readiness) {
+        String store = ((EntityManagerFactoryInfo) emf).getPersistenceUnitName();
+        return (Metamodel) Proxy.newProxyInstance(Metamodel.class.getClassLoader(), new Class<?>[]{Metamodel.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> store + " metamodel";
+                    default -> readiness.isReady(store) ? invoke(emf.getMetamodel(), method, args) : empty(method);
+                });
+    }
+
+    private static Object invoke(Metamodel metamodel, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(metamodel, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static Object empty(Method method) {
+        if (Set.class.isAssignableFrom(method.getReturnType())) {
+            return Collections.emptySet();
+        }
+        // managedType, entity, embeddable: not a managed type of this metamodel (yet)
+        throw new IllegalArgumentException("Store is not ready");
+    }
+}
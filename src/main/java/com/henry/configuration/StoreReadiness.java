@@ -0,0 +1,89 @@
+package com.henry.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * Tracks which stores have finished bootstrapping. Each config builds its EntityManagerFactory on the
+ * {@link #bootstrapExecutor} of its store, so the three factories, schema work included, are built in parallel
+ * in the background and a slow database only holds back its own store. Until a store is ready, calls to it are
+ * turned away with a 503 by {@link #check} instead of blocking on the factory. Reported in
+ * {@code /actuator/health}.
+ */
+@Component
+public class StoreReadiness implements HealthIndicator {
+
+    public enum State { STARTING, READY, FAILED }
+
+    private static final Logger log = LoggerFactory.getLogger(StoreReadiness.class);
+
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    /** A virtual-thread executor for the EntityManagerFactory of {@code store}; the store is ready once it's built. */
+    public AsyncTaskExecutor bootstrapExecutor(String store) {
+        states.put(store, State.STARTING);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("jpa-bootstrap-" + store + "-") {
+            @Override
+            public <T> Future<T> submit(Callable<T> task) {
+                return super.submit(() -> track(store, task));
+            }
+        };
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    public State state(String store) {
+        return states.getOrDefault(store, State.READY);
+    }
+
+    public boolean isReady(String store) {
+        return state(store) == State.READY;
+    }
+
+    /** Throws a 503 if {@code store} isn't ready. */
+    public void check(String store) {
+        State state = state(store);
+        if (state == State.STARTING) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, store + " is still starting");
+        }
+        if (state == State.FAILED) {
+            // the cause is in the log, it can name hosts and URLs
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, store + " failed to start");
+        }
+    }
+
+    @Override
+    public Health health() {
+        // the state only: the details are public, the cause of a failure is in the log
+        Map<String, String> details = new TreeMap<>();
+        states.forEach((store, state) -> details.put(store, state.name()));
+        boolean anyReady = states.values().stream().anyMatch(state -> state == State.READY);
+        // one store down leaves the others serving, so the application as a whole stays up
+        return (anyReady || states.isEmpty() ? Health.up() : Health.outOfService()).withDetails(details).build();
+    }
+
+    private <T> T track(String store, Callable<T> task) throws Exception {
+        try {
+            T result = task.call();
+            states.put(store, State.READY);
+            return result;
+        } catch (Exception | Error e) {
+            log.error("{} failed to start", store, e);
+            states.put(store, State.FAILED);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.henry.configuration;
+
+import com.henry.controller.CircuitOpenResolver;
+import com.henry.controller.StoreReadinessInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final StoreReadiness storeReadiness;
+
+    public WebConfig(StoreReadiness storeReadiness) {
+        this.storeReadiness = storeReadiness;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StoreReadinessInterceptor(storeReadiness, "mysql")).addPathPatterns("/api/v1/**");
+        registry.addInterceptor(new StoreReadinessInterceptor(storeReadiness, "postgres")).addPathPatterns("/api/v2/**");
+        registry.addInterceptor(new StoreReadinessInterceptor(storeReadiness, "oracle")).addPathPatterns("/api/v3/**");
+    }
+
+    @Override
+    public void extendHandlerExceptionResolvers(List<HandlerExceptionResolver> resolvers) {
+        resolvers.addFirst(new CircuitOpenResolver());
+    }
+}
@@ -0,0 +1,26 @@
+package com.henry.controller;
+
+import com.henry.record.AggregateRecord;
+import com.henry.service.AggregateService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/aggregate")
+public class AggregateController {
+
+    private final AggregateService aggregateService;
+
+    public AggregateController(AggregateService aggregateService) {
+        this.aggregateService = aggregateService;
+    }
+
+    @GetMapping
+    public AggregateRecord findById(@RequestParam(required = false) Long userId,
+                                    @RequestParam(required = false) Long companyId,
+                                    @RequestParam(required = false) Long brandId) {
+        return aggregateService.findById(userId, companyId, brandId);
+    }
+}
@@ -0,0 +1,92 @@
+package com.henry.controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.record.BatchRecord;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads a JSON array element by element and hands it to the sink in chunks, or to the subscriber as it asks for
+ * elements, so a large request body is never materialized as a whole.
+ */
+final class BatchReader {
+
+    private BatchReader() {
+    }
+
+    static <T> BatchRecord readInChunks(InputStream body, ObjectMapper mapper, Class<T> type, int chunkSize,
+                                        Consumer<List<T>> sink) throws IOException {
+        long saved = 0;
+        int chunks = 0;
+        try (JsonParser parser = mapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array");
+            }
+            List<T> chunk = new ArrayList<>(chunkSize);
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                chunk.add(mapper.readValue(parser, type));
+                if (chunk.size() == chunkSize) {
+                    sink.accept(chunk);
+                    saved += chunk.size();
+                    chunks++;
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected an array of objects");
+            }
+            if (!chunk.isEmpty()) {
+                sink.accept(chunk);
+                saved += chunk.size();
+                chunks++;
+            }
+        }
+        return new BatchRecord(saved, chunks);
+    }
+
+    /**
+     * The elements of the array, each parsed when the subscriber requests it, so the body is read no faster than
+     * the elements are used. The reads block, they are made on the bounded elastic scheduler.
+     */
+    static <T> Flux<T> read(InputStream body, ObjectMapper mapper, Class<T> type) {
+        return Flux.<T, JsonParser>generate(() -> {
+            JsonParser parser = mapper.createParser(body);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.close();
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array");
+            }
+            return parser;
+        }, (parser, sink) -> {
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    sink.next(mapper.readValue(parser, type));
+                } else if (token == JsonToken.END_ARRAY) {
+                    sink.complete();
+                } else {
+                    sink.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected an array of objects"));
+                }
+            } catch (IOException e) {
+                sink.error(e);
+            }
+            return parser;
+        }, parser -> {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                // the request is over, nothing else reads the body
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+}
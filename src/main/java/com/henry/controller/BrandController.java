@@ -1,25 +1,79 @@
 package com.henry.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.configuration.DataSourceProperties;
+import com.henry.configuration.JsonCache;
 import com.henry.model.brand.Brand;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.BatchRecord;
+import com.henry.record.BrandRecord;
 import com.henry.service.DefaultService;
+import com.henry.service.GroupCommitter;
+import com.henry.service.RecordService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v3")
 public class BrandController {
 
     private final DefaultService<Brand, Long> defaultService;
+    private final RecordService<BrandRecord, Long> recordService;
+    private final GroupCommitter<Brand> groupCommitter;
+    private final DataSourceProperties dsProperties;
+    private final ObjectMapper objectMapper;
+    private final TableVersionCounter brandTableVersion;
+    private final JsonCache jsonCache;
 
-    public BrandController(DefaultService<Brand, Long> defaultService) {
+    public BrandController(DefaultService<Brand, Long> defaultService, RecordService<BrandRecord, Long> recordService,
+            GroupCommitter<Brand> groupCommitter, DataSourceProperties dsProperties, ObjectMapper objectMapper,
+            TableVersionCounter brandTableVersion, JsonCache jsonCache) {
         this.defaultService = defaultService;
+        this.recordService = recordService;
+        this.groupCommitter = groupCommitter;
+        this.dsProperties = dsProperties;
+        this.objectMapper = objectMapper;
+        this.brandTableVersion = brandTableVersion;
+        this.jsonCache = jsonCache;
     }
 
     @PostMapping("/brands")
     public Brand createEmployee(@RequestBody Brand brand) {
-        return defaultService.save(brand);
+        return groupCommitter.save(brand);
+    }
+
+    @PostMapping("/brands/batch")
+    public BatchRecord createBrands(HttpServletRequest request) throws IOException {
+        return BatchReader.readInChunks(request.getInputStream(), objectMapper, Brand.class,
+                dsProperties.getOracle().jdbcBatchSize(), defaultService::saveAll);
+    }
+
+    @GetMapping("/brands")
+    public void getBrands(ServletWebRequest request) throws IOException {
+        VersionedList.write(brandTableVersion, "brands", VersionedList.ALL, request, jsonCache, objectMapper,
+                recordService::findAllRecords);
+    }
+
+    @GetMapping(value = "/brands", params = "ids")
+    public List<BrandRecord> getBrandsByIds(@RequestParam List<Long> ids) {
+        return recordService.findRecordsByIds(ids);
+    }
+
+    @GetMapping(value = "/brands/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamBrands(@RequestParam(required = false) Long after) {
+        int pageSize = dsProperties.getOracle().jdbcFetchSize();
+        return out -> NdjsonWriter.write(recordService.streamRecords(after, pageSize), objectMapper, out, pageSize);
     }
 
 }
@@ -0,0 +1,34 @@
+package com.henry.controller;
+
+import com.henry.configuration.JsonCache;
+import com.henry.configuration.NearCaches;
+import com.henry.record.CacheStatsRecord;
+import com.henry.record.JsonCacheStatsRecord;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/caches")
+public class CacheController {
+
+    private final NearCaches nearCaches;
+    private final JsonCache jsonCache;
+
+    public CacheController(NearCaches nearCaches, JsonCache jsonCache) {
+        this.nearCaches = nearCaches;
+        this.jsonCache = jsonCache;
+    }
+
+    @GetMapping
+    public List<CacheStatsRecord> stats() {
+        return nearCaches.snapshot();
+    }
+
+    @GetMapping("/json")
+    public JsonCacheStatsRecord jsonStats() {
+        return jsonCache.stats();
+    }
+}
@@ -0,0 +1,35 @@
+package com.henry.controller;
+
+import com.henry.configuration.CircuitBreakerDataSource.CircuitOpenException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.io.IOException;
+
+/**
+ * Answers requests that failed on an open circuit with a 503 and a {@code Retry-After} of when the circuit lets
+ * the next probe through, rather than the 500 of the data access exception wrapping it.
+ */
+public class CircuitOpenResolver implements HandlerExceptionResolver {
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Exception ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CircuitOpenException open) {
+                try {
+                    response.setHeader(HttpHeaders.RETRY_AFTER,
+                            String.valueOf(Math.max(1, (open.retryAfter().toMillis() + 999) / 1000)));
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, open.getMessage());
+                } catch (IOException e) {
+                    return null;
+                }
+                return new ModelAndView();
+            }
+        }
+        return null;
+    }
+}
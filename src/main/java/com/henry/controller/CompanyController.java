@@ -1,24 +1,78 @@
 package com.henry.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.configuration.DataSourceProperties;
+import com.henry.configuration.JsonCache;
 import com.henry.model.company.Company;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.BatchRecord;
+import com.henry.record.CompanyRecord;
 import com.henry.service.DefaultService;
+import com.henry.service.GroupCommitter;
+import com.henry.service.RecordService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v2")
 public class CompanyController {
 
     private final DefaultService<Company,Long> defaultService;
+    private final RecordService<CompanyRecord, Long> recordService;
+    private final GroupCommitter<Company> groupCommitter;
+    private final DataSourceProperties dsProperties;
+    private final ObjectMapper objectMapper;
+    private final TableVersionCounter companyTableVersion;
+    private final JsonCache jsonCache;
 
-    public CompanyController(DefaultService<Company, Long> defaultService) {
+    public CompanyController(DefaultService<Company, Long> defaultService, RecordService<CompanyRecord, Long> recordService,
+            GroupCommitter<Company> groupCommitter, DataSourceProperties dsProperties, ObjectMapper objectMapper,
+            TableVersionCounter companyTableVersion, JsonCache jsonCache) {
         this.defaultService = defaultService;
+        this.recordService = recordService;
+        this.groupCommitter = groupCommitter;
+        this.dsProperties = dsProperties;
+        this.objectMapper = objectMapper;
+        this.companyTableVersion = companyTableVersion;
+        this.jsonCache = jsonCache;
     }
 
     @PostMapping("/companies")
     public Company createEmployee(@RequestBody Company company) {
-        return defaultService.save(company);
+        return groupCommitter.save(company);
+    }
+
+    @PostMapping("/companies/batch")
+    public BatchRecord createCompanies(HttpServletRequest request) throws IOException {
+        return BatchReader.readInChunks(request.getInputStream(), objectMapper, Company.class,
+                dsProperties.getPostgres().jdbcBatchSize(), defaultService::saveAll);
+    }
+
+    @GetMapping("/companies")
+    public void getCompanies(ServletWebRequest request) throws IOException {
+        VersionedList.write(companyTableVersion, "companies", VersionedList.ALL, request, jsonCache, objectMapper,
+                recordService::findAllRecords);
+    }
+
+    @GetMapping(value = "/companies", params = "ids")
+    public List<CompanyRecord> getCompaniesByIds(@RequestParam List<Long> ids) {
+        return recordService.findRecordsByIds(ids);
+    }
+
+    @GetMapping(value = "/companies/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamCompanies(@RequestParam(required = false) Long after) {
+        int pageSize = dsProperties.getPostgres().jdbcFetchSize();
+        return out -> NdjsonWriter.write(recordService.streamRecords(after, pageSize), objectMapper, out, pageSize);
     }
 }
@@ -0,0 +1,25 @@
+package com.henry.controller;
+
+import com.henry.configuration.ConcurrencyLimits;
+import com.henry.record.LimiterStatsRecord;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/limits")
+public class LimiterController {
+
+    private final ConcurrencyLimits concurrencyLimits;
+
+    public LimiterController(ConcurrencyLimits concurrencyLimits) {
+        this.concurrencyLimits = concurrencyLimits;
+    }
+
+    @GetMapping
+    public List<LimiterStatsRecord> stats() {
+        return concurrencyLimits.snapshot();
+    }
+}
@@ -0,0 +1,33 @@
+package com.henry.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream as newline-delimited JSON, flushing every {@code flushEvery} rows so the client
+ * sees data while the table is still being read.
+ */
+final class NdjsonWriter {
+
+    private NdjsonWriter() {
+    }
+
+    static <T> void write(Stream<T> rows, ObjectMapper mapper, OutputStream out, int flushEvery) throws IOException {
+        try (rows) {
+            Iterator<T> iterator = rows.iterator();
+            int pending = 0;
+            while (iterator.hasNext()) {
+                out.write(mapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                if (++pending == flushEvery) {
+                    out.flush();
+                    pending = 0;
+                }
+            }
+            out.flush();
+        }
+    }
+}
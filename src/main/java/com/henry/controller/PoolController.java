@@ -0,0 +1,25 @@
+package com.henry.controller;
+
+import com.henry.configuration.PoolMetrics;
+import com.henry.record.PoolStatsRecord;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/pools")
+public class PoolController {
+
+    private final PoolMetrics poolMetrics;
+
+    public PoolController(PoolMetrics poolMetrics) {
+        this.poolMetrics = poolMetrics;
+    }
+
+    @GetMapping
+    public List<PoolStatsRecord> stats() {
+        return poolMetrics.snapshot();
+    }
+}
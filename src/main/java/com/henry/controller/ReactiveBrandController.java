@@ -0,0 +1,67 @@
+package com.henry.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.configuration.DataSourceProperties;
+import com.henry.record.BrandRecord;
+import com.henry.service.ReactiveService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+/**
+ * The brands endpoints on the reactive stack, under {@code /api/v3/reactive} so they can be compared with the JPA
+ * ones. A returned {@link Flux} is written by Spring MVC one element per request to the publisher, so a slow client
+ * slows the database reads down instead of filling memory.
+ */
+@RestController
+@RequestMapping("/api/v3/reactive")
+@ConditionalOnProperty(name = "spring.datasource.oracle.reactive.enabled", havingValue = "true")
+public class ReactiveBrandController {
+
+    private final ReactiveService<BrandRecord, Long> reactiveService;
+    private final DataSourceProperties dsProperties;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveBrandController(ReactiveService<BrandRecord, Long> reactiveService,
+                                   DataSourceProperties dsProperties, ObjectMapper objectMapper) {
+        this.reactiveService = reactiveService;
+        this.dsProperties = dsProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping("/brands")
+    public Mono<BrandRecord> createBrand(@RequestBody BrandRecord brand) {
+        return reactiveService.save(brand);
+    }
+
+    @PostMapping("/brands/batch")
+    public Flux<BrandRecord> createBrands(HttpServletRequest request) throws IOException {
+        // the inserts pull the rows from the body, at most a batch ahead of them
+        return reactiveService.saveAll(BatchReader.read(request.getInputStream(), objectMapper, BrandRecord.class)
+                .limitRate(dsProperties.getOracle().jdbcBatchSize()));
+    }
+
+    @GetMapping("/brands/{id}")
+    public Mono<BrandRecord> findBrand(@PathVariable Long id) {
+        return reactiveService.findById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @GetMapping(value = "/brands/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BrandRecord> streamBrands(@RequestParam(required = false) Long after) {
+        return reactiveService.streamAll(after, dsProperties.getOracle().jdbcFetchSize());
+    }
+}
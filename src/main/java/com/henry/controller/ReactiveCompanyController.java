@@ -0,0 +1,67 @@
+package com.henry.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.configuration.DataSourceProperties;
+import com.henry.record.CompanyRecord;
+import com.henry.service.ReactiveService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+/**
+ * The companies endpoints on the reactive stack, under {@code /api/v2/reactive} so they can be compared with the JPA
+ * ones. A returned {@link Flux} is written by Spring MVC one element per request to the publisher, so a slow client
+ * slows the database reads down instead of filling memory.
+ */
+@RestController
+@RequestMapping("/api/v2/reactive")
+@ConditionalOnProperty(name = "spring.datasource.postgres.reactive.enabled", havingValue = "true")
+public class ReactiveCompanyController {
+
+    private final ReactiveService<CompanyRecord, Long> reactiveService;
+    private final DataSourceProperties dsProperties;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveCompanyController(ReactiveService<CompanyRecord, Long> reactiveService,
+                                     DataSourceProperties dsProperties, ObjectMapper objectMapper) {
+        this.reactiveService = reactiveService;
+        this.dsProperties = dsProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping("/companies")
+    public Mono<CompanyRecord> createCompany(@RequestBody CompanyRecord company) {
+        return reactiveService.save(company);
+    }
+
+    @PostMapping("/companies/batch")
+    public Flux<CompanyRecord> createCompanies(HttpServletRequest request) throws IOException {
+        // the inserts pull the rows from the body, at most a batch ahead of them
+        return reactiveService.saveAll(BatchReader.read(request.getInputStream(), objectMapper, CompanyRecord.class)
+                .limitRate(dsProperties.getPostgres().jdbcBatchSize()));
+    }
+
+    @GetMapping("/companies/{id}")
+    public Mono<CompanyRecord> findCompany(@PathVariable Long id) {
+        return reactiveService.findById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @GetMapping(value = "/companies/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CompanyRecord> streamCompanies(@RequestParam(required = false) Long after) {
+        return reactiveService.streamAll(after, dsProperties.getPostgres().jdbcFetchSize());
+    }
+}
@@ -0,0 +1,67 @@
+package com.henry.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.configuration.DataSourceProperties;
+import com.henry.record.UserRecord;
+import com.henry.service.ReactiveService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+/**
+ * The users endpoints on the reactive stack, under {@code /api/v1/reactive} so they can be compared with the JPA
+ * ones. A returned {@link Flux} is written by Spring MVC one element per request to the publisher, so a slow client
+ * slows the database reads down instead of filling memory.
+ */
+@RestController
+@RequestMapping("/api/v1/reactive")
+@ConditionalOnProperty(name = "spring.datasource.mysql.reactive.enabled", havingValue = "true")
+public class ReactiveUserController {
+
+    private final ReactiveService<UserRecord, Long> reactiveService;
+    private final DataSourceProperties dsProperties;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveUserController(ReactiveService<UserRecord, Long> reactiveService,
+                                  DataSourceProperties dsProperties, ObjectMapper objectMapper) {
+        this.reactiveService = reactiveService;
+        this.dsProperties = dsProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping("/users")
+    public Mono<UserRecord> createUser(@RequestBody UserRecord user) {
+        return reactiveService.save(user);
+    }
+
+    @PostMapping("/users/batch")
+    public Flux<UserRecord> createUsers(HttpServletRequest request) throws IOException {
+        // the inserts pull the rows from the body, at most a batch ahead of them
+        return reactiveService.saveAll(BatchReader.read(request.getInputStream(), objectMapper, UserRecord.class)
+                .limitRate(dsProperties.getMysql().jdbcBatchSize()));
+    }
+
+    @GetMapping("/users/{id}")
+    public Mono<UserRecord> findUser(@PathVariable Long id) {
+        return reactiveService.findById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @GetMapping(value = "/users/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserRecord> streamUsers(@RequestParam(required = false) Long after) {
+        return reactiveService.streamAll(after, dsProperties.getMysql().jdbcFetchSize());
+    }
+}
@@ -0,0 +1,173 @@
+package com.henry.controller;
+
+import com.henry.configuration.DataSourceProperties;
+import com.henry.configuration.SqlAccount;
+import com.henry.record.SqlAccountingRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Opens a {@link SqlAccount} for every request and checks it when the handler returns. Requests running more
+ * statements or spending more database time than allowed, or repeating one SQL shape (an N+1 pattern), are
+ * logged with the offending shapes. With {@code debugHeader} the per-store counts and times go back in the
+ * {@value #STATEMENTS_HEADER} and {@value #TIME_HEADER} headers, as of the moment the response is committed.
+ * Streaming responses are accounted up to the end of the handler, not the end of the stream.
+ */
+@Component
+public class SqlAccountingFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    static final int DEFAULT_MAX_STATEMENTS = 50;
+    static final Duration DEFAULT_MAX_DURATION = Duration.ofSeconds(1);
+    static final int DEFAULT_REPEAT_THRESHOLD = 10;
+
+    private static final Logger log = LoggerFactory.getLogger(SqlAccountingFilter.class);
+
+    private final int maxStatements;
+    private final Duration maxDuration;
+    private final int repeatThreshold;
+    private final boolean debugHeader;
+    private final MeterRegistry registry;
+    private final Counter flagged;
+
+    public SqlAccountingFilter(DataSourceProperties dsProperties, MeterRegistry registry) {
+        SqlAccountingRecord record = dsProperties.getSqlAccounting();
+        this.maxStatements = record != null && record.maxStatements() != null
+                ? record.maxStatements() : DEFAULT_MAX_STATEMENTS;
+        this.maxDuration = record != null && record.maxDuration() != null
+                ? record.maxDuration() : DEFAULT_MAX_DURATION;
+        this.repeatThreshold = record != null && record.repeatThreshold() != null
+                ? record.repeatThreshold() : DEFAULT_REPEAT_THRESHOLD;
+        this.debugHeader = record != null && record.debugHeader();
+        this.registry = registry;
+        this.flagged = Counter.builder("datasource.request.flagged")
+                .description("Requests over the statement, time or repeat thresholds")
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlAccount account = SqlAccount.open();
+        try {
+            chain.doFilter(request, debugHeader ? new HeaderOnCommit(response, account) : response);
+        } finally {
+            SqlAccount.close();
+            report(request, account);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlAccount account) {
+        account.statementsByDatasource().forEach((datasource, statements) ->
+                DistributionSummary.builder("datasource.request.statements")
+                        .description("Statements run by one HTTP request")
+                        .tag("datasource", datasource)
+                        .register(registry)
+                        .record(statements));
+
+        List<String> reasons = new ArrayList<>();
+        if (account.statements() > maxStatements) {
+            reasons.add(account.statements() + " statements > " + maxStatements);
+        }
+        if (account.time().compareTo(maxDuration) > 0) {
+            reasons.add(account.time().toMillis() + " ms in the database > " + maxDuration.toMillis() + " ms");
+        }
+        List<String> repeated = account.repeated(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            reasons.add(repeated.size() + " statement(s) repeated " + repeatThreshold + "+ times");
+        }
+        if (reasons.isEmpty()) {
+            return;
+        }
+        flagged.increment();
+        log.warn("{} {}: {} [{}]; {}", request.getMethod(), request.getRequestURI(), String.join(", ", reasons),
+                statementsHeader(account), String.join("; ", repeated.isEmpty() ? account.slowest(3) : repeated));
+    }
+
+    private static String statementsHeader(SqlAccount account) {
+        return join(account.statementsByDatasource());
+    }
+
+    private static String timeHeader(SqlAccount account) {
+        return account.timeByDatasource().entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + String.format("%.2f", entry.getValue().toNanos() / 1e6))
+                .collect(Collectors.joining(","));
+    }
+
+    private static String join(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    /** Adds the accounting headers just before the body starts, the last moment headers can still be set. */
+    private static final class HeaderOnCommit extends HttpServletResponseWrapper {
+
+        private final SqlAccount account;
+        private boolean added;
+
+        HeaderOnCommit(HttpServletResponse response, SqlAccount account) {
+            super(response);
+            this.account = account;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addHeaders();
+            super.sendError(sc);
+        }
+
+        private void addHeaders() {
+            if (!added && !isCommitted()) {
+                added = true;
+                setHeader(STATEMENTS_HEADER, statementsHeader(account));
+                setHeader(TIME_HEADER, timeHeader(account));
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.henry.controller;
+
+import com.henry.configuration.StoreReadiness;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Turns requests for a store that is still bootstrapping away with a 503 before they reach its repositories,
+ * which would otherwise block until the EntityManagerFactory is built.
+ */
+public class StoreReadinessInterceptor implements HandlerInterceptor {
+
+    private final StoreReadiness storeReadiness;
+    private final String store;
+
+    public StoreReadinessInterceptor(StoreReadiness storeReadiness, String store) {
+        this.storeReadiness = storeReadiness;
+        this.store = store;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!storeReadiness.isReady(store)) {
+            response.setHeader("Retry-After", "5");
+            storeReadiness.check(store);
+        }
+        return true;
+    }
+}
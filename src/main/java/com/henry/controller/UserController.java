@@ -1,24 +1,78 @@
 package com.henry.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.configuration.DataSourceProperties;
+import com.henry.configuration.JsonCache;
 import com.henry.model.user.User;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.BatchRecord;
+import com.henry.record.UserRecord;
 import com.henry.service.DefaultService;
+import com.henry.service.GroupCommitter;
+import com.henry.service.RecordService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1")
 public class UserController {
 
     private final DefaultService<User,Long> defaultService;
+    private final RecordService<UserRecord, Long> recordService;
+    private final GroupCommitter<User> groupCommitter;
+    private final DataSourceProperties dsProperties;
+    private final ObjectMapper objectMapper;
+    private final TableVersionCounter userTableVersion;
+    private final JsonCache jsonCache;
 
-    public UserController(DefaultService<User, Long> defaultService) {
+    public UserController(DefaultService<User, Long> defaultService, RecordService<UserRecord, Long> recordService,
+            GroupCommitter<User> groupCommitter, DataSourceProperties dsProperties, ObjectMapper objectMapper,
+            TableVersionCounter userTableVersion, JsonCache jsonCache) {
         this.defaultService = defaultService;
+        this.recordService = recordService;
+        this.groupCommitter = groupCommitter;
+        this.dsProperties = dsProperties;
+        this.objectMapper = objectMapper;
+        this.userTableVersion = userTableVersion;
+        this.jsonCache = jsonCache;
     }
 
     @PostMapping("/users")
     public User createEmployee(@RequestBody User user) {
-        return defaultService.save(user);
+        return groupCommitter.save(user);
+    }
+
+    @PostMapping("/users/batch")
+    public BatchRecord createUsers(HttpServletRequest request) throws IOException {
+        return BatchReader.readInChunks(request.getInputStream(), objectMapper, User.class,
+                dsProperties.getMysql().jdbcBatchSize(), defaultService::saveAll);
+    }
+
+    @GetMapping("/users")
+    public void getUsers(ServletWebRequest request) throws IOException {
+        VersionedList.write(userTableVersion, "users", VersionedList.ALL, request, jsonCache, objectMapper,
+                recordService::findAllRecords);
+    }
+
+    @GetMapping(value = "/users", params = "ids")
+    public List<UserRecord> getUsersByIds(@RequestParam List<Long> ids) {
+        return recordService.findRecordsByIds(ids);
+    }
+
+    @GetMapping(value = "/users/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamUsers(@RequestParam(required = false) Long after) {
+        int pageSize = dsProperties.getMysql().jdbcFetchSize();
+        return out -> NdjsonWriter.write(recordService.streamRecords(after, pageSize), objectMapper, out, pageSize);
     }
 }
@@ -0,0 +1,75 @@
+package com.henry.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.configuration.JsonCache;
+import com.henry.configuration.ReplicaRoutingDataSource;
+import com.henry.model.version.TableVersionCounter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.ee10.servlet.HttpOutput;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Answers a collection GET with an ETag made from the table's version. The version is read before the query,
+ * so a write racing the query makes the next poll load again rather than the ETag hiding the write. The version
+ * comes from the primary, so a tagged list is read there too: a lagging replica would pin rows older than the
+ * version under its ETag. A client sending the current ETag gets a 304 without a query; while the version is
+ * unknown no ETag is sent and the list may come from a replica.
+ * <p>
+ * The JSON of a known version is kept in the {@link JsonCache}, so other clients polling the same version get the
+ * cached bytes without a query or serialization. Jetty sends them straight from the off-heap buffer. Only the
+ * lists read on the primary are cached, so no replica's rows are served from the cache.
+ */
+final class VersionedList {
+
+    static final String ALL = "all";
+
+    private VersionedList() {
+    }
+
+    static <T> void write(TableVersionCounter tableVersion, String table, String query, ServletWebRequest request,
+                          JsonCache jsonCache, ObjectMapper objectMapper, Supplier<List<T>> load) throws IOException {
+        HttpServletResponse response = request.getResponse();
+        long version = tableVersion.current();
+        if (version == TableVersionCounter.UNKNOWN) {
+            send(response, ByteBuffer.wrap(objectMapper.writeValueAsBytes(load.get())));
+            return;
+        }
+        String etag = "\"" + table + "-" + version + "\"";
+        if (request.checkNotModified(etag)) {
+            // the 304 and its ETag header are already set
+            return;
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        ByteBuffer json = jsonCache.get(table, query, version);
+        if (json == null) {
+            json = jsonCache.put(table, query, version,
+                    objectMapper.writeValueAsBytes(ReplicaRoutingDataSource.onPrimary(load)));
+        }
+        send(response, json);
+    }
+
+    private static void send(HttpServletResponse response, ByteBuffer json) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLengthLong(json.remaining());
+        ServletOutputStream out = response.getOutputStream();
+        if (out instanceof HttpOutput jetty) {
+            // written to the connection from the buffer as is, no copy onto the heap
+            jetty.sendContent(json);
+            return;
+        }
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (json.hasRemaining()) {
+            channel.write(json);
+        }
+    }
+}
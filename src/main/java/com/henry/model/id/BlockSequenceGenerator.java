@@ -0,0 +1,150 @@
+package com.henry.model.id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.jdbc.connections.spi.JdbcConnectionAccess;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Sequence generator that allocates whole blocks of ids through {@link IdBlockPool} instead of
+ * touching the database per insert. The sequence is exported with {@code INCREMENT BY blockSize} and read
+ * with pooled-lo semantics, so every node owns disjoint blocks. The block size comes from the
+ * {@value #BLOCK_SIZE} setting of the persistence unit, falling back to {@code increment_size}.
+ * Before its first block a node moves the sequence past the largest id in the table, so rows numbered by an
+ * earlier generator (e.g. {@code hibernate_sequences}) are not handed out again when the sequence is new.
+ * On databases without sequences it behaves like a plain pooled-lo {@link SequenceStyleGenerator}.
+ */
+public class BlockSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String BLOCK_SIZE = "henry.id.block_size";
+
+    private static final Executor REFILL_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("id-block-refill-", 0).factory());
+
+    private volatile IdBlockPool pool;
+    private String nextValSql;
+    private String seedSql;
+    private int blockSize;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        ConfigurationService configuration = serviceRegistry.getService(ConfigurationService.class);
+        blockSize = ConfigurationHelper.getInt(BLOCK_SIZE, configuration.getSettings(),
+                ConfigurationHelper.getInt(INCREMENT_PARAM, params, DEFAULT_INCREMENT_SIZE));
+        params.put(INCREMENT_PARAM, String.valueOf(blockSize));
+        params.put(OPT_PARAM, "pooled-lo");
+        super.configure(type, params, serviceRegistry);
+        String table = params.getProperty(PersistentIdentifierGenerator.TABLE);
+        String column = params.getProperty(PersistentIdentifierGenerator.PK);
+        seedSql = table != null && column != null ? "select max(" + column + ") from " + table : null;
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        super.initialize(context);
+        if (getDatabaseStructure().isPhysicalSequence()) {
+            nextValSql = context.getDialect().getSequenceSupport()
+                    .getSequenceNextValString(context.format(getDatabaseStructure().getPhysicalName()));
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        if (nextValSql == null) {
+            return super.generate(session, object);
+        }
+        IdBlockPool current = pool;
+        if (current == null) {
+            synchronized (this) {
+                if (pool == null) {
+                    JdbcServices jdbcServices = session.getJdbcServices();
+                    seed(jdbcServices);
+                    pool = new IdBlockPool(() -> fetchBlockStart(jdbcServices), blockSize, REFILL_EXECUTOR);
+                }
+                current = pool;
+            }
+        }
+        return current.next(() -> fetchBlockStart(session));
+    }
+
+    private long fetchBlockStart(SharedSessionContractImplementor session) {
+        // sequences are not transactional, so the caller's own connection is safe to use
+        JdbcCoordinator coordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = coordinator.getStatementPreparer().prepareStatement(nextValSql);
+        try (ResultSet resultSet = coordinator.getResultSetReturn().extract(statement, nextValSql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper()
+                    .convert(e, "could not allocate id block", nextValSql);
+        } finally {
+            coordinator.getLogicalConnection().getResourceRegistry().release(statement);
+            coordinator.afterStatementExecution();
+        }
+    }
+
+    private long fetchBlockStart(JdbcServices jdbcServices) {
+        // runs outside the caller's transaction, possibly on the refill thread
+        JdbcConnectionAccess access = jdbcServices.getBootstrapJdbcConnectionAccess();
+        try {
+            Connection connection = access.obtainConnection();
+            try {
+                return queryLong(connection, nextValSql);
+            } finally {
+                access.releaseConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw jdbcServices.getSqlExceptionHelper().convert(e, "could not allocate id block", nextValSql);
+        }
+    }
+
+    /**
+     * Draws from the sequence until it is past the table's largest id. Once caught up this costs one block per
+     * node start; a new sequence behind many rows walks up in steps of the block size, once.
+     */
+    private void seed(JdbcServices jdbcServices) {
+        if (seedSql == null) {
+            return;
+        }
+        JdbcConnectionAccess access = jdbcServices.getBootstrapJdbcConnectionAccess();
+        try {
+            Connection connection = access.obtainConnection();
+            try {
+                long max = queryLong(connection, seedSql);
+                long start = queryLong(connection, nextValSql);
+                while (start <= max) {
+                    start = queryLong(connection, nextValSql);
+                }
+            } finally {
+                access.releaseConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw jdbcServices.getSqlExceptionHelper().convert(e, "could not seed the id sequence", seedSql);
+        }
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            // max() of an empty table is null, read as 0
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+}
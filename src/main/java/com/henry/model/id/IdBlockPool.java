@@ -0,0 +1,75 @@
+package com.henry.model.id;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out ids from an in-memory block {@code [start, start + blockSize)} and fetches the next block
+ * in the background once the current one drops below a quarter, so callers rarely wait on the database.
+ * {@code nextBlockStart} must return the first id of a block nobody else owns (e.g. a sequence whose
+ * increment equals the block size).
+ * <p>
+ * A caller that runs out of ids never waits for a refill still in flight: under a burst every pooled
+ * connection may be held by a transaction waiting for an id, leaving none for the refill. It fetches the
+ * block itself instead, through {@code fetchNow}, and the refill becomes the block after that. The lock
+ * is a {@link ReentrantLock} so blocked virtual threads unmount instead of pinning their carrier.
+ */
+public final class IdBlockPool {
+
+    private final LongSupplier nextBlockStart;
+    private final int blockSize;
+    private final int lowWaterMark;
+    private final Executor refillExecutor;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long next;
+    private long end;
+    private CompletableFuture<Long> pending;
+
+    public IdBlockPool(LongSupplier nextBlockStart, int blockSize, Executor refillExecutor) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        this.nextBlockStart = nextBlockStart;
+        this.blockSize = blockSize;
+        this.lowWaterMark = Math.max(1, blockSize / 4);
+        this.refillExecutor = refillExecutor;
+    }
+
+    public long next() {
+        return next(nextBlockStart);
+    }
+
+    /** Next id, fetching a block with {@code fetchNow} when the current one is spent and no refill is ready. */
+    public long next(LongSupplier fetchNow) {
+        lock.lock();
+        try {
+            if (next == end) {
+                long start = takeBlock(fetchNow);
+                next = start;
+                end = start + blockSize;
+            }
+            long id = next++;
+            if (pending == null && end - next <= lowWaterMark) {
+                pending = CompletableFuture.supplyAsync(nextBlockStart::getAsLong, refillExecutor);
+            }
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long takeBlock(LongSupplier fetchNow) {
+        CompletableFuture<Long> prefetched = pending;
+        if (prefetched != null && prefetched.isDone()) {
+            pending = null;
+            if (!prefetched.isCompletedExceptionally()) {
+                return prefetched.join();
+            }
+            // the background refill failed, retry on the caller so the error surfaces there
+        }
+        return fetchNow.getAsLong();
+    }
+}
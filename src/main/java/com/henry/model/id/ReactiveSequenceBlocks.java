@@ -0,0 +1,74 @@
+package com.henry.model.id;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Allocates id blocks for {@link IdBlockPool} from the database sequence Hibernate uses for the same table, over
+ * R2DBC, so the reactive stack and the JPA stack share the sequence like two nodes of the application would.
+ * With {@code hiValues} the sequence is read like Hibernate's pooled optimizer, a value ends its block, otherwise
+ * like pooled-lo, a value starts its block. With a {@code seedQuery}, the first call moves the sequence past the
+ * largest id it returns, as {@link BlockSequenceGenerator} does. Blocks until the value arrives, call it off the
+ * event loop.
+ */
+public final class ReactiveSequenceBlocks implements LongSupplier {
+
+    private final ConnectionFactory connectionFactory;
+    private final String nextValSql;
+    private final int blockSize;
+    private final boolean hiValues;
+    private volatile String seedQuery;
+
+    public ReactiveSequenceBlocks(ConnectionFactory connectionFactory, String nextValSql, int blockSize,
+                                  boolean hiValues, String seedQuery) {
+        this.connectionFactory = connectionFactory;
+        this.nextValSql = nextValSql;
+        this.blockSize = blockSize;
+        this.hiValues = hiValues;
+        this.seedQuery = seedQuery;
+    }
+
+    @Override
+    public long getAsLong() {
+        if (!hiValues) {
+            String seed = seedQuery;
+            if (seed == null) {
+                return nextValue();
+            }
+            // concurrent first calls may both seed, which only skips a few blocks
+            long max = query(seed).longValue();
+            long start = nextValue();
+            while (start <= max) {
+                start = nextValue();
+            }
+            seedQuery = null;
+            return start;
+        }
+        long value = nextValue();
+        // the pooled optimizer takes the initial value 1 and the value after it as one block, skip 1 too
+        if (value == 1) {
+            value = nextValue();
+        }
+        return value - blockSize + 1;
+    }
+
+    private long nextValue() {
+        return query(nextValSql).longValue();
+    }
+
+    private Number query(String sql) {
+        // Oracle's NUMBER comes back as a BigDecimal, others as an integer type; max() of no rows is 0
+        Number value = Mono.usingWhen(connectionFactory.create(),
+                connection -> Mono.from(connection.createStatement(sql).execute())
+                        .flatMap(result -> Mono.from(result.map((row, metadata) ->
+                                row.get(0) instanceof Number number ? number : 0L))),
+                Connection::close).block();
+        if (value == null) {
+            throw new IllegalStateException("could not allocate id block: " + sql + " returned nothing");
+        }
+        return value;
+    }
+}
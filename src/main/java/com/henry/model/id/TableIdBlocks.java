@@ -0,0 +1,99 @@
+package com.henry.model.id;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.LongSupplier;
+
+/**
+ * Allocates id blocks for {@link IdBlockPool} from a counter row, {@code (name, next_val)}, in one database.
+ * Works where the ids are used on several databases, e.g. shards, so ids stay unique across all of them, and
+ * needs no sequence support. Each allocation is a short transaction of its own that bumps {@code next_val}
+ * by the block size. The row is created on first use, starting after the largest id {@code seedQuery} finds.
+ */
+public final class TableIdBlocks implements LongSupplier {
+
+    private final DataSource dataSource;
+    private final String name;
+    private final int blockSize;
+    private final String seedQuery;
+    private final String updateSql;
+    private final String selectSql;
+    private final String insertSql;
+
+    public TableIdBlocks(DataSource dataSource, String table, String name, int blockSize, String seedQuery) {
+        this.dataSource = dataSource;
+        this.name = name;
+        this.blockSize = blockSize;
+        this.seedQuery = seedQuery;
+        this.updateSql = "update " + table + " set next_val = next_val + ? where name = ?";
+        this.selectSql = "select next_val from " + table + " where name = ?";
+        this.insertSql = "insert into " + table + " (name, next_val) values (?, ?)";
+    }
+
+    @Override
+    public long getAsLong() {
+        try {
+            return allocateInTransaction();
+        } catch (SQLException e) {
+            if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                throw new IllegalStateException("could not allocate a block of " + name + " ids", e);
+            }
+        }
+        // lost the race to create the row, it exists now
+        try {
+            return allocateInTransaction();
+        } catch (SQLException e) {
+            throw new IllegalStateException("could not allocate a block of " + name + " ids", e);
+        }
+    }
+
+    private long allocateInTransaction() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long start = allocate(connection);
+                connection.commit();
+                return start;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private long allocate(Connection connection) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(updateSql)) {
+            update.setLong(1, blockSize);
+            update.setString(2, name);
+            if (update.executeUpdate() == 1) {
+                // the row stays locked until commit, no one else can move it in between
+                try (PreparedStatement select = connection.prepareStatement(selectSql)) {
+                    select.setString(1, name);
+                    try (ResultSet resultSet = select.executeQuery()) {
+                        resultSet.next();
+                        return resultSet.getLong(1) - blockSize;
+                    }
+                }
+            }
+        }
+
+        long start;
+        try (PreparedStatement seed = connection.prepareStatement(seedQuery);
+             ResultSet resultSet = seed.executeQuery()) {
+            start = (resultSet.next() ? resultSet.getLong(1) : 0) + 1;
+        }
+        // a concurrent first allocation fails this insert on the primary key, getAsLong then retries the update
+        try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+            insert.setString(1, name);
+            insert.setLong(2, start + blockSize);
+            insert.executeUpdate();
+        }
+        return start;
+    }
+}
@@ -13,8 +13,8 @@ import lombok.NoArgsConstructor;
 @Data
 @Builder
 public class User {
+    // assigned by UserServiceImpl before the insert, the id picks the shard
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String name;
     @Column(name = "last_name")
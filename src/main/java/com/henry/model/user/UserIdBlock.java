@@ -0,0 +1,20 @@
+package com.henry.model.user;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/** The counter {@link com.henry.model.id.TableIdBlocks} allocates user ids from, a row on shard 0. */
+@Entity
+@Table(name = "user_id_blocks")
+@Data
+public class UserIdBlock {
+
+    @Id
+    private String name;
+    @Column(name = "next_val", nullable = false)
+    private long nextVal;
+
+}
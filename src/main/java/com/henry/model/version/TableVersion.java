@@ -0,0 +1,23 @@
+package com.henry.model.version;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * The counter {@link TableVersionCounter} keeps per table, mapped in all three persistence units so each store's
+ * database has the table; users keep theirs on shard 0.
+ */
+@Entity
+@Table(name = "table_versions")
+@Data
+public class TableVersion {
+
+    @Id
+    private String name;
+    @Column(nullable = false)
+    private long version;
+
+}
@@ -0,0 +1,171 @@
+package com.henry.model.version;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * A table's version, for ETags: a row of {@code table_versions} that {@link #bump} increments after every committed
+ * write. {@link #current} never queries, it returns the last version this node wrote or read; every node reads the
+ * row again each {@code refreshInterval}, so all nodes agree on the version at most that long after a write
+ * elsewhere. Writes that bypass the services, e.g. plain SQL, aren't counted.
+ * <p>
+ * The row starts at the current time in milliseconds rather than 0, so a table that is dropped and recreated
+ * doesn't hand out versions, and ETags, it already gave to clients.
+ */
+public final class TableVersionCounter implements AutoCloseable {
+
+    public static final long UNKNOWN = -1;
+
+    private static final Logger log = LoggerFactory.getLogger(TableVersionCounter.class);
+
+    private final DataSource dataSource;
+    private final String name;
+    private final AtomicLong version = new AtomicLong(UNKNOWN);
+    private volatile boolean missedBump;
+    private final ScheduledExecutorService refresh;
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    public TableVersionCounter(DataSource dataSource, String name, Duration refreshInterval) {
+        this.dataSource = dataSource;
+        this.name = name;
+        this.refresh = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name(name + "-version-refresh").factory());
+        long interval = refreshInterval.toMillis();
+        refresh.scheduleWithFixedDelay(this::refresh, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The version as last seen by this node, {@link #UNKNOWN} until the row was read once, and after a failed
+     * {@link #bump} until the refresh has made up for it.
+     */
+    public long current() {
+        return missedBump ? UNKNOWN : version.get();
+    }
+
+    /**
+     * Counts a write; call it after the write committed, never before. A failure doesn't fail the write, this node
+     * sends no ETag until the refresh has bumped the row for it.
+     */
+    public void bump() {
+        try {
+            long bumped;
+            try {
+                bumped = bumpInTransaction();
+            } catch (SQLException e) {
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                    throw e;
+                }
+                // lost the race to create the row, it exists now
+                bumped = bumpInTransaction();
+            }
+            advance(bumped);
+        } catch (SQLException e) {
+            // no ETag is better than one that hides the write
+            missedBump = true;
+            log.warn("Could not bump the version of {}, retrying with the next refresh", name, e);
+        }
+    }
+
+    void refresh() {
+        if (missedBump) {
+            try {
+                advance(bumpInTransaction());
+                missedBump = false;
+            } catch (SQLException | RuntimeException e) {
+                log.debug("Could not bump the version of {}", name, e);
+                return;
+            }
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement select = connection.prepareStatement(
+                     "select version from table_versions where name = ?")) {
+            select.setString(1, name);
+            try (ResultSet resultSet = select.executeQuery()) {
+                if (resultSet.next()) {
+                    advance(resultSet.getLong(1));
+                } else {
+                    // not written yet, create the row at the current time so its versions aren't ones handed out
+                    // before the table was recreated; a node that created it meanwhile costs one extra version
+                    advance(bumpInTransaction());
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            // e.g. the table isn't created yet while the store starts
+            log.debug("Could not read the version of {}", name, e);
+        }
+    }
+
+    /** Calls {@code listener} with every newer version, from this node's writes and from the refresh. */
+    public void onChange(LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        refresh.shutdownNow();
+    }
+
+    private void advance(long seen) {
+        if (version.getAndAccumulate(seen, Math::max) < seen) {
+            listeners.forEach(listener -> listener.accept(seen));
+        }
+    }
+
+    private long bumpInTransaction() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long bumped = increment(connection);
+                connection.commit();
+                return bumped;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private long increment(Connection connection) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "update table_versions set version = version + 1 where name = ?")) {
+            update.setString(1, name);
+            if (update.executeUpdate() == 1) {
+                // the row stays locked until commit, the value read is this write's
+                try (PreparedStatement select = connection.prepareStatement(
+                        "select version from table_versions where name = ?")) {
+                    select.setString(1, name);
+                    try (ResultSet resultSet = select.executeQuery()) {
+                        resultSet.next();
+                        return resultSet.getLong(1);
+                    }
+                }
+            }
+        }
+        long start = System.currentTimeMillis();
+        // a concurrent first bump fails this insert on the primary key, bump then retries the update
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into table_versions (name, version) values (?, ?)")) {
+            insert.setString(1, name);
+            insert.setLong(2, start);
+            insert.executeUpdate();
+        }
+        return start;
+    }
+}
@@ -0,0 +1,6 @@
+package com.henry.record;
+
+import java.util.Map;
+
+public record AggregateRecord(UserRecord user, CompanyRecord company, BrandRecord brand, Map<String, String> errors) {
+}
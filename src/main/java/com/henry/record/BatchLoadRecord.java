@@ -0,0 +1,6 @@
+package com.henry.record;
+
+import java.time.Duration;
+
+public record BatchLoadRecord(boolean enabled, Duration window, Integer maxBatchSize) {
+}
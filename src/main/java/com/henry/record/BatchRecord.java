@@ -0,0 +1,4 @@
+package com.henry.record;
+
+public record BatchRecord(long saved, int chunks) {
+}
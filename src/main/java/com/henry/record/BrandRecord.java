@@ -0,0 +1,12 @@
+package com.henry.record;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * A brand as read for a response, never managed by a persistence context. Also the row type of the reactive stack,
+ * the mapping annotations are Spring Data R2DBC's.
+ */
+@Table("brands")
+public record BrandRecord(@Id Long id, String name) {
+}
@@ -0,0 +1,4 @@
+package com.henry.record;
+
+public record CacheStatsRecord(String cache, long size, long hits, long misses, double hitRate, long evictions) {
+}
@@ -0,0 +1,6 @@
+package com.henry.record;
+
+import java.time.Duration;
+
+public record CircuitBreakerRecord(boolean enabled, Integer failureThreshold, Duration openDuration) {
+}
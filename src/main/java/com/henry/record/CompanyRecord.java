@@ -0,0 +1,12 @@
+package com.henry.record;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * A company as read for a response, never managed by a persistence context. Also the row type of the reactive stack,
+ * the mapping annotations are Spring Data R2DBC's.
+ */
+@Table("companies")
+public record CompanyRecord(@Id Long id, String name) {
+}
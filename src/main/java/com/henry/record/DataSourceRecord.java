@@ -0,0 +1,39 @@
+package com.henry.record;
+
+import java.time.Duration;
+
+public interface DataSourceRecord {
+
+    int DEFAULT_BATCH_SIZE = 50;
+    int DEFAULT_FETCH_SIZE = 500;
+    Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+
+    String url();
+    String username();
+    String password();
+    String driverClassName();
+    String ddlAuto();
+    Integer batchSize();
+    Integer fetchSize();
+    PoolRecord pool();
+    CacheRecord cache();
+    Duration timeout();
+    ReplicationRecord replication();
+    GroupCommitRecord groupCommit();
+    ReactiveRecord reactive();
+    LimiterRecord limiter();
+    CircuitBreakerRecord circuitBreaker();
+    BatchLoadRecord batchLoad();
+
+    default int jdbcBatchSize() {
+        return batchSize() != null ? batchSize() : DEFAULT_BATCH_SIZE;
+    }
+
+    default int jdbcFetchSize() {
+        return fetchSize() != null ? fetchSize() : DEFAULT_FETCH_SIZE;
+    }
+
+    default Duration callTimeout() {
+        return timeout() != null ? timeout() : DEFAULT_TIMEOUT;
+    }
+}
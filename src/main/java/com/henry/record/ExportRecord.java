@@ -0,0 +1,7 @@
+package com.henry.record;
+
+import java.time.Duration;
+
+/** One table export: rows and bytes of the snapshot file. */
+public record ExportRecord(String entity, String file, long rows, long bytes, Duration elapsed) {
+}
@@ -0,0 +1,6 @@
+package com.henry.record;
+
+import java.time.Duration;
+
+public record GroupCommitRecord(boolean enabled, Duration window, Integer maxBatchSize) {
+}
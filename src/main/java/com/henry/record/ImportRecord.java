@@ -0,0 +1,7 @@
+package com.henry.record;
+
+import java.time.Duration;
+
+/** One file import: rows written by this run, and chunks already done by an earlier, interrupted run. */
+public record ImportRecord(String entity, long rows, int chunks, int resumedChunks, Duration elapsed) {
+}
@@ -0,0 +1,6 @@
+package com.henry.record;
+
+import org.springframework.util.unit.DataSize;
+
+public record JsonCacheRecord(boolean enabled, DataSize maxSize) {
+}
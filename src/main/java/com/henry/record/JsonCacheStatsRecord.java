@@ -0,0 +1,5 @@
+package com.henry.record;
+
+public record JsonCacheStatsRecord(boolean enabled, int entries, long bytes, long maxBytes, long hits, long misses,
+        double hitRate, long evictions) {
+}
@@ -0,0 +1,7 @@
+package com.henry.record;
+
+import java.time.Duration;
+
+public record LimiterRecord(boolean enabled, Integer initialLimit, Integer minLimit, Integer maxLimit,
+        Double tolerance, Duration retryAfter) {
+}
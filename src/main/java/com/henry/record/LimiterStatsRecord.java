@@ -0,0 +1,5 @@
+package com.henry.record;
+
+public record LimiterStatsRecord(String store, boolean enabled, int limit, int inFlight, long accepted, long rejected,
+        double rejectionRate) {
+}
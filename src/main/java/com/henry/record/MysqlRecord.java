@@ -1,4 +1,9 @@
 package com.henry.record;
 
-public record MysqlRecord(String url, String username, String password, String driverClassName,String ddlAuto) {
+import java.time.Duration;
+
+public record MysqlRecord(String url, String username, String password, String driverClassName, String ddlAuto,
+        Integer batchSize, Integer fetchSize, PoolRecord pool, CacheRecord cache, Duration timeout,
+        ReplicationRecord replication, GroupCommitRecord groupCommit, ShardingRecord sharding,
+        ReactiveRecord reactive, LimiterRecord limiter, CircuitBreakerRecord circuitBreaker, BatchLoadRecord batchLoad) implements DataSourceRecord {
 }
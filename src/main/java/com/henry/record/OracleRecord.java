@@ -1,4 +1,10 @@
 package com.henry.record;
 
-public record OracleRecord(String url, String username, String password, String driverClassName,String ddlAuto) {
+import java.time.Duration;
+
+public record OracleRecord(String url, String username, String password, String driverClassName, String ddlAuto,
+        Integer batchSize, Integer fetchSize, Integer idBlockSize, PoolRecord pool, CacheRecord cache,
+        Duration timeout, ReplicationRecord replication,
+        GroupCommitRecord groupCommit, ReactiveRecord reactive, LimiterRecord limiter,
+        CircuitBreakerRecord circuitBreaker, BatchLoadRecord batchLoad) implements DataSourceRecord {
 }
@@ -0,0 +1,9 @@
+package com.henry.record;
+
+import java.time.Duration;
+import java.util.Map;
+
+public record PoolRecord(Integer maximumPoolSize, Integer minimumIdle, Long connectionTimeout, Long idleTimeout,
+                         Long maxLifetime, Integer maxConcurrency, Duration connectTimeout, Duration queryTimeout,
+                         Map<String, String> dataSourceProperties) {
+}
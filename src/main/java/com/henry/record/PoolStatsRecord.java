@@ -0,0 +1,6 @@
+package com.henry.record;
+
+public record PoolStatsRecord(String pool, int active, int idle, int total, int pending, int maxSize,
+        double utilization, long acquisitions, double avgAcquireMillis, double maxAcquireMillis, long timeouts,
+        double avgUsageMillis) {
+}
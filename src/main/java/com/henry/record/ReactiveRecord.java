@@ -0,0 +1,8 @@
+package com.henry.record;
+
+/**
+ * The R2DBC side of a store: {@code url} is an {@code r2dbc:} URL to the same database as the JDBC url, with the
+ * store's username and password. {@code maxSize} defaults to the JDBC pool's maximum.
+ */
+public record ReactiveRecord(boolean enabled, String url, Integer maxSize) {
+}
@@ -0,0 +1,4 @@
+package com.henry.record;
+
+public record ReplicaRecord(String url, String username, String password) {
+}
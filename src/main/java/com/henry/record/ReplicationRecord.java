@@ -0,0 +1,7 @@
+package com.henry.record;
+
+import java.time.Duration;
+import java.util.List;
+
+public record ReplicationRecord(List<ReplicaRecord> replicas, Duration healthCheckInterval, Duration readYourWrites) {
+}
@@ -0,0 +1,4 @@
+package com.henry.record;
+
+public record ShardRecord(String url, String username, String password, String reactiveUrl) {
+}
@@ -0,0 +1,6 @@
+package com.henry.record;
+
+import java.util.List;
+
+public record ShardingRecord(List<ShardRecord> shards, Integer idBlockSize) {
+}
@@ -0,0 +1,7 @@
+package com.henry.record;
+
+import java.time.Duration;
+
+public record SqlAccountingRecord(Integer maxStatements, Duration maxDuration, Integer repeatThreshold,
+        boolean debugHeader) {
+}
@@ -0,0 +1,12 @@
+package com.henry.record;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * A user as read for a response, never managed by a persistence context. Also the row type of the reactive stack,
+ * the mapping annotations are Spring Data R2DBC's.
+ */
+@Table("users")
+public record UserRecord(@Id Long id, String name, String lastName) {
+}
@@ -1,7 +1,29 @@
 package com.henry.repository.brand;
 
 import com.henry.model.brand.Brand;
+import com.henry.record.BrandRecord;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface BrandRepository extends CrudRepository<Brand,Long> {
+
+    @Transactional(readOnly = true)
+    List<Brand> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Transactional(readOnly = true)
+    Optional<BrandRecord> findRecordById(Long id);
+
+    @Transactional(readOnly = true)
+    List<BrandRecord> findRecordsBy();
+
+    @Transactional(readOnly = true)
+    List<BrandRecord> findRecordsByIdIn(Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    List<BrandRecord> findRecordsByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
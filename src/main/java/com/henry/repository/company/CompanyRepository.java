@@ -1,7 +1,29 @@
 package com.henry.repository.company;
 
 import com.henry.model.company.Company;
+import com.henry.record.CompanyRecord;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface CompanyRepository extends CrudRepository<Company,Long> {
+
+    @Transactional(readOnly = true)
+    List<Company> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Transactional(readOnly = true)
+    Optional<CompanyRecord> findRecordById(Long id);
+
+    @Transactional(readOnly = true)
+    List<CompanyRecord> findRecordsBy();
+
+    @Transactional(readOnly = true)
+    List<CompanyRecord> findRecordsByIdIn(Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    List<CompanyRecord> findRecordsByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -0,0 +1,11 @@
+package com.henry.repository.reactive;
+
+import com.henry.record.BrandRecord;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveBrandRepository extends ReactiveCrudRepository<BrandRecord, Long> {
+
+    Flux<BrandRecord> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+}
@@ -0,0 +1,11 @@
+package com.henry.repository.reactive;
+
+import com.henry.record.CompanyRecord;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveCompanyRepository extends ReactiveCrudRepository<CompanyRecord, Long> {
+
+    Flux<CompanyRecord> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+}
@@ -0,0 +1,11 @@
+package com.henry.repository.reactive;
+
+import com.henry.record.UserRecord;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveUserRepository extends ReactiveCrudRepository<UserRecord, Long> {
+
+    Flux<UserRecord> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+}
@@ -0,0 +1,16 @@
+package com.henry.repository.user;
+
+import com.henry.model.user.User;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/** Plain inserts of users whose id is already assigned, without the lookup {@code save} does first. */
+public interface UserInserts {
+
+    @Transactional
+    User insert(User user);
+
+    @Transactional
+    List<User> insertAll(List<User> users);
+}
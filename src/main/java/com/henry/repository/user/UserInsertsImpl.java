@@ -0,0 +1,25 @@
+package com.henry.repository.user;
+
+import com.henry.model.user.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+class UserInsertsImpl implements UserInserts {
+
+    @PersistenceContext(unitName = "mysql")
+    private EntityManager entityManager;
+
+    @Override
+    public User insert(User user) {
+        entityManager.persist(user);
+        return user;
+    }
+
+    @Override
+    public List<User> insertAll(List<User> users) {
+        users.forEach(entityManager::persist);
+        return users;
+    }
+}
@@ -1,7 +1,30 @@
 package com.henry.repository.user;
 
 import com.henry.model.user.User;
+import com.henry.record.UserRecord;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface UserRepository extends CrudRepository<User,Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRepository extends CrudRepository<User,Long>, UserInserts {
+
+    @Transactional(readOnly = true)
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // constructor expressions: the rows become records without passing through the persistence context
+    @Transactional(readOnly = true)
+    Optional<UserRecord> findRecordById(Long id);
+
+    @Transactional(readOnly = true)
+    List<UserRecord> findRecordsBy();
+
+    @Transactional(readOnly = true)
+    List<UserRecord> findRecordsByIdIn(Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    List<UserRecord> findRecordsByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
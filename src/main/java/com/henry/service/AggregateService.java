@@ -0,0 +1,150 @@
+package com.henry.service;
+
+import com.henry.configuration.DataSourceProperties;
+import com.henry.configuration.StoreReadiness;
+import com.henry.record.AggregateRecord;
+import com.henry.record.BrandRecord;
+import com.henry.record.CompanyRecord;
+import com.henry.record.UserRecord;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Fans one lookup out to MySQL, PostgreSQL and Oracle at the same time, one virtual thread per store. Every store
+ * gets its own deadline; a store that fails, runs late or hasn't finished starting only leaves its part of the
+ * result empty and is reported in {@code errors}, as one of a few fixed reasons. The exception itself, which may
+ * carry SQL or host names, is only logged.
+ * <p>
+ * The lookups go through each store's {@link BatchLoader}, so concurrent aggregates share one read-only {@code IN}
+ * query per store. The caller holds no transaction while it waits for the batch, and so no connection.
+ */
+@Service
+public class AggregateService {
+
+    private static final Logger log = LoggerFactory.getLogger(AggregateService.class);
+
+    private final BatchLoader<UserRecord> userLoader;
+    private final BatchLoader<CompanyRecord> companyLoader;
+    private final BatchLoader<BrandRecord> brandLoader;
+    private final DataSourceProperties dsProperties;
+    private final StoreReadiness storeReadiness;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AggregateService(BatchLoader<UserRecord> userLoader, BatchLoader<CompanyRecord> companyLoader,
+                            BatchLoader<BrandRecord> brandLoader, DataSourceProperties dsProperties,
+                            StoreReadiness storeReadiness) {
+        this.userLoader = userLoader;
+        this.companyLoader = companyLoader;
+        this.brandLoader = brandLoader;
+        this.dsProperties = dsProperties;
+        this.storeReadiness = storeReadiness;
+    }
+
+    public AggregateRecord findById(Long userId, Long companyId, Long brandId) {
+        long start = System.nanoTime();
+        Future<UserRecord> user = submit("mysql", userId, userLoader::load);
+        Future<CompanyRecord> company = submit("postgres", companyId, companyLoader::load);
+        Future<BrandRecord> brand = submit("oracle", brandId, brandLoader::load);
+
+        Map<String, String> errors = new LinkedHashMap<>();
+        return new AggregateRecord(
+                await("users", user, start, dsProperties.getMysql().callTimeout(), errors),
+                await("companies", company, start, dsProperties.getPostgres().callTimeout(), errors),
+                await("brands", brand, start, dsProperties.getOracle().callTimeout(), errors),
+                errors);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> Future<T> submit(String store, Long id, Function<Long, T> lookup) {
+        if (id == null) {
+            return null;
+        }
+        if (!storeReadiness.isReady(store)) {
+            return CompletableFuture.failedFuture(new NotReady(store + " is " + storeReadiness.state(store)));
+        }
+        return executor.submit(() -> lookup.apply(id));
+    }
+
+    private static <T> T await(String store, Future<T> future, long start, Duration timeout,
+                               Map<String, String> errors) {
+        if (future == null) {
+            return null;
+        }
+        long remaining = timeout.toNanos() - (System.nanoTime() - start);
+        try {
+            return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            errors.put(store, "timed out after " + timeout.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            errors.put(store, reason(store, e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            errors.put(store, "interrupted");
+        }
+        return null;
+    }
+
+    private static String reason(String store, Throwable cause) {
+        if (cause instanceof NoSuchElementException) {
+            return "not found";
+        }
+        if (cause instanceof NotReady) {
+            return "not ready";
+        }
+        if (unavailable(cause)) {
+            log.debug("{} lookup failed, the store is unavailable", store, cause);
+            return "unavailable";
+        }
+        log.warn("{} lookup failed", store, cause);
+        return "failed";
+    }
+
+    /** Shed by the limiter, an open circuit, or no connection to the database. */
+    private static boolean unavailable(Throwable cause) {
+        if (cause instanceof ResponseStatusException status) {
+            return status.getStatusCode().isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        for (Throwable next = cause; next != null; next = next.getCause()) {
+            if (next instanceof TransientDataAccessException || next instanceof DataAccessResourceFailureException
+                    || next instanceof CannotCreateTransactionException
+                    || next instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class NotReady extends IllegalStateException {
+
+        private NotReady(String message) {
+            super(message);
+        }
+    }
+}
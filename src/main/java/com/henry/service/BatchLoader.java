@@ -0,0 +1,189 @@
+package com.henry.service;
+
+import com.henry.record.BatchLoadRecord;
+import com.henry.record.DataSourceRecord;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-id lookups of one store, as a DataLoader does. {@link #load} calls are queued and a
+ * collector thread gathers the distinct ids that arrive within {@code window} (or up to {@code maxBatchSize} of
+ * them) into one {@link RecordService#findRecordsByIds} call, so a burst of lookups costs one {@code IN} query
+ * instead of one query each. Callers asking for the same id share its record. The batch runs on its own virtual
+ * thread, so the next window starts collecting while it is read. A caller waits for its record at most
+ * {@code timeout}, the store's call timeout; once closed, lookups are refused.
+ * When disabled, {@link #load} simply calls the single-id lookup.
+ */
+public class BatchLoader<R> implements AutoCloseable {
+
+    static final Duration DEFAULT_WINDOW = Duration.ofMillis(2);
+
+    private final String name;
+    private final Function<Long, R> single;
+    private final Function<List<Long>, List<R>> batch;
+    private final Function<R, Long> idOf;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Duration timeout;
+    private final BlockingQueue<Pending<R>> queue = new LinkedBlockingQueue<>();
+    private final Thread collector;
+    private volatile boolean closed;
+
+    public BatchLoader(String name, Function<Long, R> single, Function<List<Long>, List<R>> batch,
+                       Function<R, Long> idOf, boolean enabled, Duration window, int maxBatchSize,
+                       Duration timeout) {
+        this.name = name;
+        this.single = single;
+        this.batch = batch;
+        this.idOf = idOf;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = timeout;
+        this.collector = enabled ? Thread.ofVirtual().name(name + "-batch-load").start(this::run) : null;
+    }
+
+    public static <R> BatchLoader<R> forStore(String name, RecordService<R, Long> service, Function<R, Long> idOf,
+                                              DataSourceRecord record) {
+        BatchLoadRecord batchLoad = record.batchLoad();
+        boolean enabled = batchLoad != null && batchLoad.enabled();
+        Duration window = batchLoad != null && batchLoad.window() != null ? batchLoad.window() : DEFAULT_WINDOW;
+        int maxBatchSize = batchLoad != null && batchLoad.maxBatchSize() != null
+                ? batchLoad.maxBatchSize() : RecordService.MAX_IN_LIST;
+        return new BatchLoader<>(name, service::findRecordById, service::findRecordsByIds, idOf, enabled, window,
+                maxBatchSize, record.callTimeout());
+    }
+
+    /**
+     * The record of {@code id}, or a {@link NoSuchElementException} as from {@link RecordService#findRecordById}.
+     * A {@link QueryTimeoutException} if its batch takes longer than the timeout.
+     */
+    public R load(Long id) {
+        if (!enabled) {
+            if (closed) {
+                throw shutDown();
+            }
+            return single.apply(id);
+        }
+        try {
+            return submit(id).orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof TimeoutException) {
+                throw new QueryTimeoutException(name + " " + id + " not loaded within " + timeout.toMillis() + " ms",
+                        e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<R> submit(Long id) {
+        if (closed) {
+            return CompletableFuture.failedFuture(shutDown());
+        }
+        if (!enabled) {
+            return CompletableFuture.completedFuture(single.apply(id));
+        }
+        Pending<R> pending = new Pending<>(id, new CompletableFuture<>());
+        queue.add(pending);
+        if (closed && queue.remove(pending)) {
+            // closed since the check above, the collector may have drained the queue already
+            pending.result().completeExceptionally(shutDown());
+        }
+        return pending.result();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (collector != null) {
+            collector.interrupt();
+        }
+    }
+
+    private void run() {
+        Map<Long, List<CompletableFuture<R>>> group = new LinkedHashMap<>();
+        try {
+            while (true) {
+                add(group, queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxBatchSize) {
+                    Pending<R> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    add(group, next);
+                }
+                Map<Long, List<CompletableFuture<R>>> flushed = group;
+                Thread.ofVirtual().name(name + "-batch-load").start(() -> flush(flushed));
+                group = new LinkedHashMap<>();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Pending<R> pending : queue) {
+                add(group, pending);
+            }
+            group.values().stream().flatMap(List::stream).forEach(result -> result.completeExceptionally(shutDown()));
+        }
+    }
+
+    private IllegalStateException shutDown() {
+        return new IllegalStateException(name + " batch load is shut down");
+    }
+
+    private void add(Map<Long, List<CompletableFuture<R>>> group, Pending<R> pending) {
+        // a repeated id only adds a waiter, not a row to the query
+        group.computeIfAbsent(pending.id(), id -> new ArrayList<>(1)).add(pending.result());
+    }
+
+    private void flush(Map<Long, List<CompletableFuture<R>>> group) {
+        Map<Long, R> loaded = new LinkedHashMap<>();
+        Throwable failure = null;
+        try {
+            batch.apply(new ArrayList<>(group.keySet())).forEach(record -> loaded.put(idOf.apply(record), record));
+        } catch (Throwable e) {
+            failure = e;
+            if (e instanceof Error error) {
+                throw error;
+            }
+        } finally {
+            // every waiter gets an answer, whatever went wrong
+            complete(group, loaded, failure);
+        }
+    }
+
+    private void complete(Map<Long, List<CompletableFuture<R>>> group, Map<Long, R> loaded, Throwable failure) {
+        group.forEach((id, results) -> {
+            R record = loaded.get(id);
+            for (CompletableFuture<R> result : results) {
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else if (record != null) {
+                    result.complete(record);
+                } else {
+                    result.completeExceptionally(new NoSuchElementException(name + " " + id + " not found"));
+                }
+            }
+        });
+    }
+
+    private record Pending<R>(Long id, CompletableFuture<R> result) {
+    }
+}
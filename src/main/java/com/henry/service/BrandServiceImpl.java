@@ -1,31 +1,118 @@
 package com.henry.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.collect.Lists;
+import com.henry.configuration.ConcurrencyLimiter;
 import com.henry.model.brand.Brand;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.BrandRecord;
 import com.henry.repository.brand.BrandRepository;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
 @Service
-public final class BrandServiceImpl implements DefaultService<Brand, Long> {
+public final class BrandServiceImpl implements DefaultService<Brand, Long>, RecordService<BrandRecord, Long> {
 
     private final BrandRepository brandRepository;
+    private final Cache<Long, BrandRecord> brandCache;
+    private final TableVersionCounter brandTableVersion;
+    private final ConcurrencyLimiter brandLimiter;
 
-    public BrandServiceImpl(BrandRepository brandRepository) {
+    public BrandServiceImpl(@Lazy BrandRepository brandRepository, Cache<Long, BrandRecord> brandCache,
+                            TableVersionCounter brandTableVersion, ConcurrencyLimiter brandLimiter) {
         this.brandRepository = brandRepository;
+        this.brandCache = brandCache;
+        this.brandTableVersion = brandTableVersion;
+        this.brandLimiter = brandLimiter;
     }
 
 
     @Override
     public Brand save(Brand obj) {
-        return brandRepository.save(obj);
+        Brand saved = brandLimiter.call(() -> brandRepository.save(obj));
+        // bumped before the invalidation, see NearCacheLoads
+        brandTableVersion.bump();
+        brandCache.invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public Iterable<Brand> saveAll(Iterable<Brand> objs) {
+        Iterable<Brand> saved = brandLimiter.call(() -> brandRepository.saveAll(objs));
+        brandTableVersion.bump();
+        saved.forEach(obj -> brandCache.invalidate(obj.getId()));
+        return saved;
     }
 
     @Override
     public Iterable<Brand> findAll() {
-        return brandRepository.findAll();
+        return brandLimiter.call(brandRepository::findAll);
     }
 
     @Override
     public Brand findById(Long id) {
-        return brandRepository.findById(id).get();
+        return brandLimiter.call(() -> brandRepository.findById(id)).get();
+    }
+
+    @Override
+    public List<Brand> findAfter(Long id, int limit) {
+        return brandLimiter.call(() -> brandRepository.findByIdGreaterThanOrderByIdAsc(id == null ? 0L : id, Limit.of(limit)));
+    }
+
+    @Override
+    public Stream<Brand> streamAll(Long afterId, int pageSize) {
+        return KeysetPager.stream(afterId, pageSize, this::findAfter, Brand::getId);
+    }
+
+    @Override
+    public BrandRecord findRecordById(Long id) {
+        BrandRecord cached = brandCache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = brandTableVersion.current();
+        BrandRecord loaded = brandLimiter.call(() -> brandRepository.findRecordById(id)).get();
+        NearCacheLoads.put(brandCache, brandTableVersion, seen, Map.of(id, loaded));
+        return loaded;
+    }
+
+    @Override
+    public List<BrandRecord> findRecordsByIds(Collection<Long> ids) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, BrandRecord> found = new HashMap<>(brandCache.getAllPresent(distinct));
+        List<Long> missing = distinct.stream().filter(id -> !found.containsKey(id)).toList();
+        long seen = brandTableVersion.current();
+        Map<Long, BrandRecord> loaded = new HashMap<>();
+        for (List<Long> chunk : Lists.partition(missing, MAX_IN_LIST)) {
+            brandLimiter.call(() -> brandRepository.findRecordsByIdIn(chunk))
+                    .forEach(record -> loaded.put(record.id(), record));
+        }
+        NearCacheLoads.put(brandCache, brandTableVersion, seen, loaded);
+        found.putAll(loaded);
+        return distinct.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public List<BrandRecord> findAllRecords() {
+        return brandLimiter.call(brandRepository::findRecordsBy);
+    }
+
+    @Override
+    public List<BrandRecord> findRecordsAfter(Long id, int limit) {
+        return brandLimiter.call(() -> brandRepository.findRecordsByIdGreaterThanOrderByIdAsc(id == null ? 0L : id,
+                Limit.of(limit)));
+    }
+
+    @Override
+    public Stream<BrandRecord> streamRecords(Long afterId, int pageSize) {
+        return KeysetPager.stream(afterId, pageSize, this::findRecordsAfter, BrandRecord::id);
     }
 }
@@ -1,30 +1,117 @@
 package com.henry.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.collect.Lists;
+import com.henry.configuration.ConcurrencyLimiter;
 import com.henry.model.company.Company;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.CompanyRecord;
 import com.henry.repository.company.CompanyRepository;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
 @Service
-public final class CompanyServiceImpl implements DefaultService<Company, Long> {
+public final class CompanyServiceImpl implements DefaultService<Company, Long>, RecordService<CompanyRecord, Long> {
 
     private final CompanyRepository companyRepository;
+    private final Cache<Long, CompanyRecord> companyCache;
+    private final TableVersionCounter companyTableVersion;
+    private final ConcurrencyLimiter companyLimiter;
 
-    public CompanyServiceImpl(CompanyRepository companyRepository) {
+    public CompanyServiceImpl(@Lazy CompanyRepository companyRepository, Cache<Long, CompanyRecord> companyCache,
+                              TableVersionCounter companyTableVersion, ConcurrencyLimiter companyLimiter) {
         this.companyRepository = companyRepository;
+        this.companyCache = companyCache;
+        this.companyTableVersion = companyTableVersion;
+        this.companyLimiter = companyLimiter;
     }
 
     @Override
     public Company save(Company obj) {
-        return companyRepository.save(obj);
+        Company saved = companyLimiter.call(() -> companyRepository.save(obj));
+        // bumped before the invalidation, see NearCacheLoads
+        companyTableVersion.bump();
+        companyCache.invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public Iterable<Company> saveAll(Iterable<Company> objs) {
+        Iterable<Company> saved = companyLimiter.call(() -> companyRepository.saveAll(objs));
+        companyTableVersion.bump();
+        saved.forEach(obj -> companyCache.invalidate(obj.getId()));
+        return saved;
     }
 
     @Override
     public Iterable<Company> findAll() {
-        return companyRepository.findAll();
+        return companyLimiter.call(companyRepository::findAll);
     }
 
     @Override
     public Company findById(Long id) {
-        return companyRepository.findById(id).get();
+        return companyLimiter.call(() -> companyRepository.findById(id)).get();
+    }
+
+    @Override
+    public List<Company> findAfter(Long id, int limit) {
+        return companyLimiter.call(() -> companyRepository.findByIdGreaterThanOrderByIdAsc(id == null ? 0L : id, Limit.of(limit)));
+    }
+
+    @Override
+    public Stream<Company> streamAll(Long afterId, int pageSize) {
+        return KeysetPager.stream(afterId, pageSize, this::findAfter, Company::getId);
+    }
+
+    @Override
+    public CompanyRecord findRecordById(Long id) {
+        CompanyRecord cached = companyCache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = companyTableVersion.current();
+        CompanyRecord loaded = companyLimiter.call(() -> companyRepository.findRecordById(id)).get();
+        NearCacheLoads.put(companyCache, companyTableVersion, seen, Map.of(id, loaded));
+        return loaded;
+    }
+
+    @Override
+    public List<CompanyRecord> findRecordsByIds(Collection<Long> ids) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, CompanyRecord> found = new HashMap<>(companyCache.getAllPresent(distinct));
+        List<Long> missing = distinct.stream().filter(id -> !found.containsKey(id)).toList();
+        long seen = companyTableVersion.current();
+        Map<Long, CompanyRecord> loaded = new HashMap<>();
+        for (List<Long> chunk : Lists.partition(missing, MAX_IN_LIST)) {
+            companyLimiter.call(() -> companyRepository.findRecordsByIdIn(chunk))
+                    .forEach(record -> loaded.put(record.id(), record));
+        }
+        NearCacheLoads.put(companyCache, companyTableVersion, seen, loaded);
+        found.putAll(loaded);
+        return distinct.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public List<CompanyRecord> findAllRecords() {
+        return companyLimiter.call(companyRepository::findRecordsBy);
+    }
+
+    @Override
+    public List<CompanyRecord> findRecordsAfter(Long id, int limit) {
+        return companyLimiter.call(() -> companyRepository.findRecordsByIdGreaterThanOrderByIdAsc(id == null ? 0L : id,
+                Limit.of(limit)));
+    }
+
+    @Override
+    public Stream<CompanyRecord> streamRecords(Long afterId, int pageSize) {
+        return KeysetPager.stream(afterId, pageSize, this::findRecordsAfter, CompanyRecord::id);
     }
 }
@@ -1,8 +1,18 @@
 package com.henry.service;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 public sealed interface DefaultService<T, G> permits UserServiceImpl, CompanyServiceImpl, BrandServiceImpl {
 
     T save(T obj);
+    Iterable<T> saveAll(Iterable<T> objs);
     Iterable<T>  findAll();
     T findById(G id);
+
+    /** One keyset page: up to {@code limit} rows with an id greater than {@code id}, ordered by id. */
+    List<T> findAfter(G id, int limit);
+
+    /** Lazily walks the table page by page, one short read per page, so memory stays flat. */
+    Stream<T> streamAll(G afterId, int pageSize);
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.henry.service;
+
+import com.henry.record.ExportRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs the application as an export command when started with {@code --export.all=<dir>},
+ * {@code --export.users=<file>}, {@code --export.companies=<file>} or {@code --export.brands=<file>}, optionally
+ * {@code --export.compress} and {@code --export.parallelism=8}. The exports run and the application exits, with
+ * status 1 if one failed. Without these options it does nothing; don't combine it with an import.
+ */
+@Component
+public class ExportCommand implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportCommand.class);
+    private static final List<String> ENTITIES = List.of("users", "companies", "brands");
+
+    private final TableExporter tableExporter;
+    private final ConfigurableApplicationContext context;
+
+    public ExportCommand(TableExporter tableExporter, ConfigurableApplicationContext context) {
+        this.tableExporter = tableExporter;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> entities = ENTITIES.stream().filter(entity -> args.containsOption("export." + entity)).toList();
+        if (entities.isEmpty() && !args.containsOption("export.all")) {
+            return;
+        }
+        boolean compress = args.containsOption("export.compress")
+                && !args.getOptionValues("export.compress").contains("false");
+        int parallelism = args.containsOption("export.parallelism")
+                ? Integer.parseInt(args.getOptionValues("export.parallelism").getFirst())
+                : TableExporter.DEFAULT_PARALLELISM;
+
+        int status = 0;
+        try {
+            if (args.containsOption("export.all")) {
+                for (ExportRecord result : tableExporter.exportAll(Path.of(args.getOptionValues("export.all")
+                        .getFirst()), compress, parallelism)) {
+                    log.info("Exported {}", result);
+                }
+            }
+            for (String entity : entities) {
+                ExportRecord result = tableExporter.export(entity,
+                        Path.of(args.getOptionValues("export." + entity).getFirst()), compress, parallelism);
+                log.info("Exported {}", result);
+            }
+        } catch (Exception e) {
+            log.error("Export failed", e);
+            status = 1;
+        }
+        int exitCode = status;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
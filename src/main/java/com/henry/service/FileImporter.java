@@ -0,0 +1,329 @@
+package com.henry.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.henry.configuration.DataSourceProperties;
+import com.henry.configuration.ShardRoutingDataSource;
+import com.henry.model.brand.Brand;
+import com.henry.model.company.Company;
+import com.henry.model.id.IdBlockPool;
+import com.henry.model.user.User;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.ImportRecord;
+import com.henry.service.MappedChunks.Chunk;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk import of users, companies or brands from a CSV (header line, then one row per line) or NDJSON file. The
+ * file is cut into chunks on line breaks and the chunks are memory-mapped and parsed in parallel, one per core.
+ * Each chunk is written with a Hibernate {@link StatelessSession} in one transaction per database, so nothing is
+ * cached or dirty-checked and the inserts go out in JDBC batches. Every row gets a new id from its store, ids in
+ * the file are ignored. The users of a chunk are dealt to the shards by their position in it, and each gets an id
+ * that hashes to its shard.
+ * <p>
+ * Committed chunks are recorded in {@code <file>.checkpoint}, and an import of the same file skips them, so an
+ * interrupted or failed import resumes where it stopped. A chunk of users commits shard by shard, each shard is
+ * recorded as it commits: a chunk that fails on one shard is imported again only on the shards that don't have it.
+ */
+@Service
+public class FileImporter {
+
+    public static final long DEFAULT_CHUNK_BYTES = 8L * 1024 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(FileImporter.class);
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Target> targets;
+    private final ExecutorService workers;
+
+    private record Target(Class<?> type, int shards, Writer writer) {
+    }
+
+    /** Writes the rows of chunk {@code chunk} that {@code checkpoint} doesn't have yet, returns how many. */
+    @FunctionalInterface
+    private interface Writer {
+        int write(int chunk, List<Object> rows, ImportCheckpoint checkpoint) throws IOException;
+    }
+
+    public FileImporter(ObjectMapper objectMapper,
+                        @Qualifier("userEntityManager") EntityManagerFactory userEntityManager,
+                        @Qualifier("companyEntityManager") EntityManagerFactory companyEntityManager,
+                        @Qualifier("brandEntityManager") EntityManagerFactory brandEntityManager,
+                        @Qualifier("userTableVersion") TableVersionCounter userTableVersion,
+                        @Qualifier("companyTableVersion") TableVersionCounter companyTableVersion,
+                        @Qualifier("brandTableVersion") TableVersionCounter brandTableVersion,
+                        ShardRoutingDataSource userShards, IdBlockPool userIds, DataSourceProperties dsProperties) {
+        this.objectMapper = objectMapper;
+        this.targets = Map.of(
+                "users", new Target(User.class, userShards.shardCount(), (chunk, rows, checkpoint) -> {
+                    // by position, not by id: a rerun of the chunk deals the same users to the same shards
+                    Map<Integer, List<User>> usersByShard = new TreeMap<>();
+                    for (int i = 0; i < rows.size(); i++) {
+                        int shard = i % userShards.shardCount();
+                        if (!checkpoint.isDone(chunk, shard)) {
+                            usersByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add((User) rows.get(i));
+                        }
+                    }
+                    assignIds(usersByShard, userIds, userShards);
+                    int written = 0;
+                    try {
+                        for (Map.Entry<Integer, List<User>> shard : usersByShard.entrySet()) {
+                            userShards.on(shard.getKey(), () -> insert(userEntityManager, shard.getValue(),
+                                    dsProperties.getMysql().jdbcBatchSize()));
+                            checkpoint.done(chunk, shard.getKey());
+                            written += shard.getValue().size();
+                        }
+                    } finally {
+                        // shards before a failed one have committed
+                        userTableVersion.bump();
+                    }
+                    return written;
+                }),
+                "companies", new Target(Company.class, 1, (chunk, rows, checkpoint) -> {
+                    insert(companyEntityManager, rows, dsProperties.getPostgres().jdbcBatchSize());
+                    companyTableVersion.bump();
+                    return rows.size();
+                }),
+                "brands", new Target(Brand.class, 1, (chunk, rows, checkpoint) -> {
+                    insert(brandEntityManager, rows, dsProperties.getOracle().jdbcBatchSize());
+                    brandTableVersion.bump();
+                    return rows.size();
+                }));
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                Thread.ofPlatform().name("file-import-", 0).daemon().factory());
+    }
+
+    /**
+     * Imports {@code file} into {@code entity}, one of {@code users}, {@code companies} or {@code brands}. Files
+     * ending in {@code .csv} are read as CSV, anything else as NDJSON.
+     */
+    public ImportRecord importFile(String entity, Path file, long chunkBytes) throws IOException {
+        Target target = targets.get(entity);
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown entity " + entity + ", expected one of " + targets.keySet());
+        }
+        boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        long start = System.nanoTime();
+
+        try (MappedChunks chunks = MappedChunks.open(file, chunkBytes, csv)) {
+            LineParser parser = csv ? csvParser(chunks.header(), target.type()) : ndjsonParser(target.type());
+            Path checkpointPath = file.resolveSibling(file.getFileName() + ".checkpoint");
+            ImportCheckpoint checkpoint = ImportCheckpoint.open(checkpointPath,
+                    "size=" + Files.size(file) + " chunkBytes=" + chunkBytes + " shards=" + target.shards());
+            int resumed = checkpoint.doneCount();
+            if (resumed > 0) {
+                log.info("{} import of {}: resuming, {} of {} chunks done", entity, file, resumed,
+                        chunks.chunks().size());
+            }
+
+            Progress progress = new Progress(entity, chunks.chunks().size(), resumed);
+            AtomicBoolean failed = new AtomicBoolean();
+            List<Future<?>> futures = new ArrayList<>();
+            for (Chunk chunk : chunks.chunks()) {
+                if (!checkpoint.isDone(chunk.index())) {
+                    futures.add(workers.submit(() -> {
+                        if (failed.get()) {
+                            return null;
+                        }
+                        try {
+                            List<Object> rows = parse(chunks, chunk, parser);
+                            int written = target.writer().write(chunk.index(), rows, checkpoint);
+                            checkpoint.done(chunk.index());
+                            progress.chunkDone(written, chunk.bytes());
+                            return null;
+                        } catch (Exception e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }));
+                }
+            }
+            // after the first failure the chunks not started yet are skipped, the running ones still commit and
+            // get their checkpoint, so a resumed import doesn't write them twice
+            Throwable failure = ParallelWork.awaitAll(futures, failed);
+            if (failure != null) {
+                checkpoint.close();
+                throw new IllegalStateException(entity + " import of " + file + " failed after "
+                        + progress.rows() + " rows, import it again to resume", failure);
+            }
+            checkpoint.delete();
+
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            log.info("{} import of {}: {} rows in {} ms", entity, file, progress.rows(), elapsed.toMillis());
+            return new ImportRecord(entity, progress.rows(), chunks.chunks().size(), resumed, elapsed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface LineParser {
+        Object parse(byte[] line, int length) throws IOException;
+    }
+
+    private static List<Object> parse(MappedChunks chunks, Chunk chunk, LineParser parser) throws IOException {
+        List<Object> rows = new ArrayList<>();
+        chunks.forEachLine(chunk, (line, length) -> rows.add(parser.parse(line, length)));
+        return rows;
+    }
+
+    private LineParser ndjsonParser(Class<?> type) {
+        ObjectReader reader = objectMapper.readerFor(type);
+        return (line, length) -> reader.readValue(line, 0, length);
+    }
+
+    /** Columns are matched to properties by name, {@code last_name} or {@code lastName}; {@code id} is skipped. */
+    private LineParser csvParser(String header, Class<?> type) {
+        if (header == null || header.isEmpty()) {
+            throw new IllegalArgumentException("CSV import needs a header line");
+        }
+        List<String> columns = csvFields(header).stream().map(FileImporter::camelCase).toList();
+        return (line, length) -> {
+            List<String> fields = csvFields(new String(line, 0, length, StandardCharsets.UTF_8));
+            Map<String, String> properties = new HashMap<>();
+            for (int i = 0; i < columns.size() && i < fields.size(); i++) {
+                if (!columns.get(i).equals("id") && !fields.get(i).isEmpty()) {
+                    properties.put(columns.get(i), fields.get(i));
+                }
+            }
+            return objectMapper.convertValue(properties, type);
+        };
+    }
+
+    /** Fields of one CSV line, quoted fields may contain commas and doubled quotes but no line breaks. */
+    static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String camelCase(String column) {
+        StringBuilder name = new StringBuilder();
+        boolean upper = false;
+        for (char c : column.strip().toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                name.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Gives every user an id that hashes to the shard it was dealt to. Ids hashing to a shard with no user left
+     * are skipped, leaving a gap.
+     */
+    private static void assignIds(Map<Integer, List<User>> usersByShard, IdBlockPool userIds,
+                                  ShardRoutingDataSource userShards) {
+        int[] assigned = new int[userShards.shardCount()];
+        int remaining = usersByShard.values().stream().mapToInt(List::size).sum();
+        while (remaining > 0) {
+            long id = userIds.next();
+            int shard = userShards.shardOf(id);
+            List<User> users = usersByShard.get(shard);
+            if (users != null && assigned[shard] < users.size()) {
+                users.get(assigned[shard]++).setId(id);
+                remaining--;
+            }
+        }
+    }
+
+    private static Void insert(EntityManagerFactory entityManagerFactory, List<?> rows, int batchSize) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(batchSize);
+            Transaction transaction = session.beginTransaction();
+            try {
+                rows.forEach(session::insert);
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+        return null;
+    }
+
+    /** Logs each committed chunk with the rows so far and the throughput of this run. */
+    private static final class Progress {
+
+        private final String entity;
+        private final int chunks;
+        private final long start = System.nanoTime();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private int done;
+
+        Progress(String entity, int chunks, int done) {
+            this.entity = entity;
+            this.chunks = chunks;
+            this.done = done;
+        }
+
+        synchronized void chunkDone(int chunkRows, long chunkBytes) {
+            done++;
+            long total = rows.addAndGet(chunkRows);
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+            log.info("{} import: {}/{} chunks, {} rows, {} rows/s, {} MB/s", entity, done, chunks, total,
+                    Math.round(total / seconds), String.format("%.1f", bytes.addAndGet(chunkBytes) / 1e6 / seconds));
+        }
+
+        long rows() {
+            return rows.get();
+        }
+    }
+}
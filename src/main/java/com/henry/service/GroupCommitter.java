@@ -0,0 +1,157 @@
+package com.henry.service;
+
+import com.henry.record.DataSourceRecord;
+import com.henry.record.GroupCommitRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Group commit for single-row saves of one store. Concurrent {@link #save} calls are queued and a
+ * flusher thread writes whatever arrived within {@code window} (or up to {@code maxBatchSize} rows) in
+ * one batched transaction, so a burst of tiny POSTs costs one commit instead of one each. If the batch
+ * fails, its rows get their original id back (the rolled back batch may have assigned one) and are retried
+ * one by one, so every caller gets its own entity or its own error. A batch that commits but returns another
+ * number of rows than it was given fails all of its callers, as its rows are written already.
+ * When disabled, {@link #save} simply calls the single-row save.
+ */
+public class GroupCommitter<T> implements AutoCloseable {
+
+    static final Duration DEFAULT_WINDOW = Duration.ofMillis(5);
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitter.class);
+
+    private final String name;
+    private final Function<T, T> single;
+    private final Function<List<T>, Iterable<T>> batch;
+    private final Function<T, Long> idOf;
+    private final BiConsumer<T, Long> setId;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<Pending<T>> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+
+    public GroupCommitter(String name, Function<T, T> single, Function<List<T>, Iterable<T>> batch,
+                          Function<T, Long> idOf, BiConsumer<T, Long> setId,
+                          boolean enabled, Duration window, int maxBatchSize) {
+        this.name = name;
+        this.single = single;
+        this.batch = batch;
+        this.idOf = idOf;
+        this.setId = setId;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.flusher = enabled ? Thread.ofVirtual().name(name + "-group-commit").start(this::run) : null;
+    }
+
+    public static <T> GroupCommitter<T> forStore(String name, DefaultService<T, Long> service,
+                                                 Function<T, Long> idOf, BiConsumer<T, Long> setId,
+                                                 DataSourceRecord record) {
+        GroupCommitRecord groupCommit = record.groupCommit();
+        boolean enabled = groupCommit != null && groupCommit.enabled();
+        Duration window = groupCommit != null && groupCommit.window() != null ? groupCommit.window() : DEFAULT_WINDOW;
+        int maxBatchSize = groupCommit != null && groupCommit.maxBatchSize() != null
+                ? groupCommit.maxBatchSize() : record.jdbcBatchSize();
+        return new GroupCommitter<>(name, service::save, service::saveAll, idOf, setId, enabled, window, maxBatchSize);
+    }
+
+    public T save(T entity) {
+        if (!enabled) {
+            return single.apply(entity);
+        }
+        try {
+            return submit(entity).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<T> submit(T entity) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(single.apply(entity));
+        }
+        Pending<T> pending = new Pending<>(entity, idOf.apply(entity), new CompletableFuture<>());
+        queue.add(pending);
+        return pending.result();
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending<T>> group = new ArrayList<>(maxBatchSize);
+        try {
+            while (true) {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxBatchSize) {
+                    Pending<T> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                flush(group);
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            group.addAll(queue);
+            group.forEach(pending -> pending.result().completeExceptionally(
+                    new IllegalStateException(name + " group commit is shut down")));
+        }
+    }
+
+    private void flush(List<Pending<T>> group) {
+        List<T> entities = group.stream().map(Pending::entity).toList();
+        List<T> saved = new ArrayList<>(group.size());
+        try {
+            batch.apply(entities).forEach(saved::add);
+        } catch (RuntimeException batchFailure) {
+            log.debug("{} - group of {} failed, retrying rows one by one", name, group.size(), batchFailure);
+            for (Pending<T> pending : group) {
+                try {
+                    setId.accept(pending.entity(), pending.originalId());
+                    pending.result().complete(single.apply(pending.entity()));
+                } catch (RuntimeException e) {
+                    pending.result().completeExceptionally(e);
+                }
+            }
+            return;
+        }
+        if (saved.size() != group.size()) {
+            // the batch committed, so retrying its rows would write them twice; nor can they be matched up
+            IllegalStateException mismatch = new IllegalStateException(
+                    name + " - group of " + group.size() + " came back as " + saved.size() + " rows");
+            log.warn("{}", mismatch.getMessage());
+            group.forEach(pending -> pending.result().completeExceptionally(mismatch));
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).result().complete(saved.get(i));
+        }
+    }
+
+    private record Pending<T>(T entity, Long originalId, CompletableFuture<T> result) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.henry.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The chunks of an import that are committed, one line per chunk appended to the checkpoint file and forced to
+ * disk as each chunk commits. A rerun skips them. A chunk written to several user shards also gets a
+ * {@code chunk:shard} line as each shard commits, so a rerun of a chunk skips the shards that have it. The first
+ * line describes the chunking; a checkpoint written for another file size, chunk size or shard count is refused
+ * rather than skipping the wrong rows.
+ */
+final class ImportCheckpoint implements Closeable {
+
+    private static final Pattern SHARD_LINE = Pattern.compile("(\\d+):(\\d+)");
+
+    private final Path path;
+    private final BitSet done = new BitSet();
+    private final Map<Integer, BitSet> shardsDone = new HashMap<>();
+    private final FileChannel channel;
+
+    private ImportCheckpoint(Path path, String chunking) throws IOException {
+        this.path = path;
+        if (Files.exists(path)) {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.getFirst().equals(chunking)) {
+                throw new IllegalStateException(path + " belongs to another file or chunk size ("
+                        + (lines.isEmpty() ? "empty" : lines.getFirst()) + "), delete it to start over");
+            }
+            // a line cut short by a crash is a chunk whose checkpoint wasn't written
+            for (String line : lines.subList(1, lines.size())) {
+                Matcher shardLine = SHARD_LINE.matcher(line);
+                if (line.matches("\\d+")) {
+                    done.set(Integer.parseInt(line));
+                } else if (shardLine.matches()) {
+                    shardDone(Integer.parseInt(shardLine.group(1)), Integer.parseInt(shardLine.group(2)));
+                }
+            }
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } else {
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+            append(chunking);
+        }
+    }
+
+    static ImportCheckpoint open(Path path, String chunking) throws IOException {
+        return new ImportCheckpoint(path, chunking);
+    }
+
+    synchronized boolean isDone(int chunk) {
+        return done.get(chunk);
+    }
+
+    synchronized int doneCount() {
+        return done.cardinality();
+    }
+
+    synchronized void done(int chunk) throws IOException {
+        append(String.valueOf(chunk));
+        done.set(chunk);
+    }
+
+    synchronized boolean isDone(int chunk, int shard) {
+        BitSet shards = shardsDone.get(chunk);
+        return shards != null && shards.get(shard);
+    }
+
+    synchronized void done(int chunk, int shard) throws IOException {
+        append(chunk + ":" + shard);
+        shardDone(chunk, shard);
+    }
+
+    private void shardDone(int chunk, int shard) {
+        shardsDone.computeIfAbsent(chunk, key -> new BitSet()).set(shard);
+    }
+
+    /** Called once the whole file is imported, a later import of the same path starts from scratch. */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void append(String line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+    }
+}
@@ -0,0 +1,61 @@
+package com.henry.service;
+
+import com.henry.record.ImportRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs the application as an import command when started with {@code --import.users=<file>},
+ * {@code --import.companies=<file>} or {@code --import.brands=<file>}, optionally {@code --import.chunkSize=16MB}.
+ * The files are imported one after the other and the application exits, with status 1 if an import failed.
+ * Without these options it does nothing.
+ */
+@Component
+public class ImportCommand implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportCommand.class);
+    private static final List<String> ENTITIES = List.of("users", "companies", "brands");
+
+    private final FileImporter fileImporter;
+    private final ConfigurableApplicationContext context;
+
+    public ImportCommand(FileImporter fileImporter, ConfigurableApplicationContext context) {
+        this.fileImporter = fileImporter;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> entities = ENTITIES.stream().filter(entity -> args.containsOption("import." + entity)).toList();
+        if (entities.isEmpty()) {
+            return;
+        }
+        long chunkBytes = args.containsOption("import.chunkSize")
+                ? DataSize.parse(args.getOptionValues("import.chunkSize").getFirst()).toBytes()
+                : FileImporter.DEFAULT_CHUNK_BYTES;
+
+        int status = 0;
+        try {
+            for (String entity : entities) {
+                for (String file : args.getOptionValues("import." + entity)) {
+                    ImportRecord result = fileImporter.importFile(entity, Path.of(file), chunkBytes);
+                    log.info("Imported {}", result);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Import failed", e);
+            status = 1;
+        }
+        int exitCode = status;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
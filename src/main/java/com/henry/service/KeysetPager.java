@@ -0,0 +1,59 @@
+package com.henry.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Turns a keyset page query ({@code id > ? order by id limit ?}) into a lazy stream. Each page is
+ * fetched only when the previous one has been consumed, and no transaction or cursor stays open in between.
+ * {@link #flux} does the same for the reactive stack, reading at most one page ahead of the subscriber.
+ */
+final class KeysetPager {
+
+    private KeysetPager() {
+    }
+
+    static <T> Stream<T> stream(Long afterId, int pageSize, BiFunction<Long, Integer, List<T>> fetch,
+                                Function<T, Long> idOf) {
+        Spliterator<List<T>> pages = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            private Long cursor = afterId;
+            private boolean done;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super List<T>> action) {
+                if (done) {
+                    return false;
+                }
+                List<T> page = fetch.apply(cursor, pageSize);
+                done = page.size() < pageSize;
+                if (page.isEmpty()) {
+                    return false;
+                }
+                cursor = idOf.apply(page.get(page.size() - 1));
+                action.accept(page);
+                return true;
+            }
+        };
+        return StreamSupport.stream(pages, false).flatMap(List::stream);
+    }
+
+    static <T> Flux<T> flux(Long afterId, int pageSize, BiFunction<Long, Integer, Flux<T>> fetch,
+                            Function<T, Long> idOf) {
+        return fetch.apply(afterId, pageSize).collectList()
+                .expand(page -> page.size() < pageSize ? Mono.empty()
+                        : fetch.apply(idOf.apply(page.get(page.size() - 1)), pageSize).collectList())
+                // pages are taken one at a time, so the next query waits for the previous page's demand
+                .concatMapIterable(page -> page, 1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.henry.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A file cut into chunks of about {@code chunkBytes} that end on a line break, so each chunk can be parsed on
+ * its own thread. The cuts only depend on the file and the chunk size, a rerun over the same file gets the same
+ * chunks. A chunk is memory-mapped while its lines are read, nothing is copied through a read buffer.
+ */
+final class MappedChunks implements Closeable {
+
+    record Chunk(int index, long start, long end) {
+
+        long bytes() {
+            return end - start;
+        }
+    }
+
+    @FunctionalInterface
+    interface LineSink {
+        /** {@code line[0, length)} without the line break, only valid during the call. */
+        void accept(byte[] line, int length) throws IOException;
+    }
+
+    private static final int SCAN_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final String header;
+    private final List<Chunk> chunks;
+
+    private MappedChunks(FileChannel channel, String header, List<Chunk> chunks) {
+        this.channel = channel;
+        this.header = header;
+        this.chunks = chunks;
+    }
+
+    /** With {@code withHeader} the first line is kept apart, see {@link #header()}, and isn't part of any chunk. */
+    static MappedChunks open(Path file, long chunkBytes, boolean withHeader) throws IOException {
+        if (chunkBytes <= 0 || chunkBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("chunk size must be between 1 byte and 2 GB: " + chunkBytes);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long start = 0;
+            String header = null;
+            if (withHeader) {
+                start = lineEnd(channel, 0, size);
+                header = new String(read(channel, 0, (int) start), StandardCharsets.UTF_8).strip();
+            }
+            List<Chunk> chunks = new ArrayList<>();
+            while (start < size) {
+                long end = start + chunkBytes >= size ? size : lineEnd(channel, start + chunkBytes - 1, size);
+                chunks.add(new Chunk(chunks.size(), start, end));
+                start = end;
+            }
+            return new MappedChunks(channel, header, List.copyOf(chunks));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    String header() {
+        return header;
+    }
+
+    List<Chunk> chunks() {
+        return chunks;
+    }
+
+    void forEachLine(Chunk chunk, LineSink sink) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.bytes());
+        byte[] line = new byte[256];
+        int length = 0;
+        for (int i = 0, size = buffer.limit(); i < size; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                emit(line, length, sink);
+                length = 0;
+            } else {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+        emit(line, length, sink);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void emit(byte[] line, int length, LineSink sink) throws IOException {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        if (length > 0) {
+            sink.accept(line, length);
+        }
+    }
+
+    /** The position just past the first line break at or after {@code from}, or the end of the file. */
+    private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        for (long position = from; position < size; position += buffer.limit()) {
+            buffer.clear();
+            channel.read(buffer, position);
+            buffer.flip();
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,29 @@
+package com.henry.service;
+
+import com.google.common.cache.Cache;
+import com.henry.model.version.TableVersionCounter;
+
+import java.util.Map;
+
+/**
+ * Fills a near cache with records read through it, without letting a read that raced a save put the old record
+ * back. The saves bump the table version before they invalidate, so a reader that puts and then still sees the
+ * version it read before loading knows the save's invalidation is still to come, or the read came after the
+ * commit. Otherwise it takes its own records out again. An unknown version caches nothing.
+ */
+final class NearCacheLoads {
+
+    private NearCacheLoads() {
+    }
+
+    /** {@code seen} is {@link TableVersionCounter#current} as read before the records were loaded. */
+    static <R> void put(Cache<Long, R> cache, TableVersionCounter tableVersion, long seen, Map<Long, R> loaded) {
+        if (seen == TableVersionCounter.UNKNOWN || loaded.isEmpty()) {
+            return;
+        }
+        cache.putAll(loaded);
+        if (tableVersion.current() != seen) {
+            cache.invalidateAll(loaded.keySet());
+        }
+    }
+}
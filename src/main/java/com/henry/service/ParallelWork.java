@@ -0,0 +1,36 @@
+package com.henry.service;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** Waiting on the parts of a job split over a worker pool, as the imports and exports do. */
+final class ParallelWork {
+
+    private ParallelWork() {
+    }
+
+    /**
+     * Waits for every part and returns the first failure, or {@code null}. The parts see {@code failed} to stop
+     * early; it is set here only on interruption, when the parts still running are cancelled as well.
+     */
+    static Throwable awaitAll(List<? extends Future<?>> futures, AtomicBoolean failed) {
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                failed.set(true);
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                return e;
+            }
+        }
+        return failure;
+    }
+}
@@ -0,0 +1,77 @@
+package com.henry.service;
+
+import com.henry.model.id.IdBlockPool;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.BrandRecord;
+import com.henry.repository.reactive.ReactiveBrandRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Service
+@ConditionalOnProperty(name = "spring.datasource.oracle.reactive.enabled", havingValue = "true")
+public final class ReactiveBrandServiceImpl implements ReactiveService<BrandRecord, Long> {
+
+    private final ReactiveBrandRepository brandRepository;
+    private final R2dbcEntityTemplate brandTemplate;
+    private final IdBlockPool brandIds;
+    private final TableVersionCounter brandTableVersion;
+
+    public ReactiveBrandServiceImpl(ReactiveBrandRepository reactiveBrandRepository,
+                                      @Qualifier("brandR2dbcTemplate") R2dbcEntityTemplate brandTemplate,
+                                      @Qualifier("brandReactiveIds") IdBlockPool brandIds,
+                                    @Qualifier("brandTableVersion") TableVersionCounter brandTableVersion) {
+        this.brandRepository = reactiveBrandRepository;
+        this.brandTemplate = brandTemplate;
+        this.brandIds = brandIds;
+        this.brandTableVersion = brandTableVersion;
+    }
+
+    @Override
+    public Mono<BrandRecord> save(BrandRecord obj) {
+        return insert(obj).flatMap(saved -> bumpVersion().thenReturn(saved));
+    }
+
+    @Override
+    public Flux<BrandRecord> saveAll(Flux<BrandRecord> objs) {
+        // one bump for the batch, also when it fails or is cancelled after some inserts
+        return Flux.usingWhen(Mono.just(brandTableVersion), version -> objs.concatMap(this::insert),
+                version -> bumpVersion(), (version, error) -> bumpVersion(), version -> bumpVersion());
+    }
+
+    @Override
+    public Flux<BrandRecord> findAll() {
+        return brandRepository.findAll();
+    }
+
+    @Override
+    public Mono<BrandRecord> findById(Long id) {
+        return brandRepository.findById(id);
+    }
+
+    @Override
+    public Flux<BrandRecord> findAfter(Long id, int limit) {
+        return brandRepository.findByIdGreaterThanOrderByIdAsc(id == null ? 0L : id, Limit.of(limit));
+    }
+
+    @Override
+    public Flux<BrandRecord> streamAll(Long afterId, int pageSize) {
+        return KeysetPager.flux(afterId, pageSize, this::findAfter, BrandRecord::id);
+    }
+
+    private Mono<BrandRecord> insert(BrandRecord obj) {
+        // the pool rarely waits on the sequence, but when it does it blocks
+        return Mono.fromCallable(brandIds::next).subscribeOn(Schedulers.boundedElastic())
+                .flatMap(id -> brandTemplate.insert(new BrandRecord(id, obj.name())));
+    }
+
+    private Mono<Void> bumpVersion() {
+        // the counter writes over JDBC
+        return Mono.<Void>fromRunnable(brandTableVersion::bump).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,77 @@
+package com.henry.service;
+
+import com.henry.model.id.IdBlockPool;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.CompanyRecord;
+import com.henry.repository.reactive.ReactiveCompanyRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Service
+@ConditionalOnProperty(name = "spring.datasource.postgres.reactive.enabled", havingValue = "true")
+public final class ReactiveCompanyServiceImpl implements ReactiveService<CompanyRecord, Long> {
+
+    private final ReactiveCompanyRepository companyRepository;
+    private final R2dbcEntityTemplate companyTemplate;
+    private final IdBlockPool companyIds;
+    private final TableVersionCounter companyTableVersion;
+
+    public ReactiveCompanyServiceImpl(ReactiveCompanyRepository reactiveCompanyRepository,
+                                      @Qualifier("companyR2dbcTemplate") R2dbcEntityTemplate companyTemplate,
+                                      @Qualifier("companyReactiveIds") IdBlockPool companyIds,
+                                      @Qualifier("companyTableVersion") TableVersionCounter companyTableVersion) {
+        this.companyRepository = reactiveCompanyRepository;
+        this.companyTemplate = companyTemplate;
+        this.companyIds = companyIds;
+        this.companyTableVersion = companyTableVersion;
+    }
+
+    @Override
+    public Mono<CompanyRecord> save(CompanyRecord obj) {
+        return insert(obj).flatMap(saved -> bumpVersion().thenReturn(saved));
+    }
+
+    @Override
+    public Flux<CompanyRecord> saveAll(Flux<CompanyRecord> objs) {
+        // one bump for the batch, also when it fails or is cancelled after some inserts
+        return Flux.usingWhen(Mono.just(companyTableVersion), version -> objs.concatMap(this::insert),
+                version -> bumpVersion(), (version, error) -> bumpVersion(), version -> bumpVersion());
+    }
+
+    @Override
+    public Flux<CompanyRecord> findAll() {
+        return companyRepository.findAll();
+    }
+
+    @Override
+    public Mono<CompanyRecord> findById(Long id) {
+        return companyRepository.findById(id);
+    }
+
+    @Override
+    public Flux<CompanyRecord> findAfter(Long id, int limit) {
+        return companyRepository.findByIdGreaterThanOrderByIdAsc(id == null ? 0L : id, Limit.of(limit));
+    }
+
+    @Override
+    public Flux<CompanyRecord> streamAll(Long afterId, int pageSize) {
+        return KeysetPager.flux(afterId, pageSize, this::findAfter, CompanyRecord::id);
+    }
+
+    private Mono<CompanyRecord> insert(CompanyRecord obj) {
+        // the pool rarely waits on the sequence, but when it does it blocks
+        return Mono.fromCallable(companyIds::next).subscribeOn(Schedulers.boundedElastic())
+                .flatMap(id -> companyTemplate.insert(new CompanyRecord(id, obj.name())));
+    }
+
+    private Mono<Void> bumpVersion() {
+        // the counter writes over JDBC
+        return Mono.<Void>fromRunnable(companyTableVersion::bump).subscribeOn(Schedulers.boundedElastic());
+    }
+}
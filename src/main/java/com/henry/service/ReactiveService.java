@@ -0,0 +1,25 @@
+package com.henry.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non-blocking counterpart of {@link DefaultService}, on R2DBC, for the stores with {@code reactive.enabled}.
+ * Rows are the records of {@link RecordService}, in the same tables as the JPA stack, and new ids come from the
+ * same source, so both stacks can write side by side. Nothing is read before it is requested: rows come from the
+ * driver as the subscriber asks for them. The near caches are not used; writes only insert new ids, so no cached
+ * entry goes stale.
+ */
+public sealed interface ReactiveService<R, G>
+        permits ReactiveUserServiceImpl, ReactiveCompanyServiceImpl, ReactiveBrandServiceImpl {
+
+    /** Inserts {@code obj} under a new id, an id it carries is ignored. */
+    Mono<R> save(R obj);
+    Flux<R> saveAll(Flux<R> objs);
+    Flux<R> findAll();
+    Mono<R> findById(G id);
+
+    /** One keyset page, as {@link DefaultService#findAfter}. */
+    Flux<R> findAfter(G id, int limit);
+    Flux<R> streamAll(G afterId, int pageSize);
+}
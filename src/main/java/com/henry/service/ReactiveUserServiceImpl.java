@@ -0,0 +1,102 @@
+package com.henry.service;
+
+import com.henry.configuration.ReactiveShards;
+import com.henry.configuration.ShardRoutingDataSource;
+import com.henry.model.id.IdBlockPool;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.UserRecord;
+import com.henry.repository.reactive.ReactiveUserRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Users on R2DBC, sharded like {@link UserServiceImpl}: a row is on the shard {@link ShardRoutingDataSource#shardOf}
+ * its id, which comes from {@code userIds} before the insert. Pages are merged from all shards in id order, each
+ * shard read only as far as the merge needs it.
+ */
+@Service
+@ConditionalOnProperty(name = "spring.datasource.mysql.reactive.enabled", havingValue = "true")
+public final class ReactiveUserServiceImpl implements ReactiveService<UserRecord, Long> {
+
+    private final ReactiveShards userReactiveShards;
+    private final List<ReactiveUserRepository> repositories;
+    private final ShardRoutingDataSource userShards;
+    private final IdBlockPool userIds;
+    private final TableVersionCounter userTableVersion;
+
+    public ReactiveUserServiceImpl(ReactiveShards userReactiveShards, ShardRoutingDataSource userShards,
+                                   IdBlockPool userIds,
+                                   @Qualifier("userTableVersion") TableVersionCounter userTableVersion) {
+        if (userReactiveShards.shardCount() != userShards.shardCount()) {
+            throw new IllegalStateException("users have " + userShards.shardCount() + " shards but "
+                    + userReactiveShards.shardCount() + " reactive ones, set reactiveUrl on every shard");
+        }
+        this.userReactiveShards = userReactiveShards;
+        this.repositories = userReactiveShards.repositories(ReactiveUserRepository.class);
+        this.userShards = userShards;
+        this.userIds = userIds;
+        this.userTableVersion = userTableVersion;
+    }
+
+    @Override
+    public Mono<UserRecord> save(UserRecord obj) {
+        return insert(obj).flatMap(saved -> bumpVersion().thenReturn(saved));
+    }
+
+    @Override
+    public Flux<UserRecord> saveAll(Flux<UserRecord> objs) {
+        // one bump for the batch, also when it fails or is cancelled after some inserts
+        return Flux.usingWhen(Mono.just(userTableVersion), version -> objs.concatMap(this::insert),
+                version -> bumpVersion(), (version, error) -> bumpVersion(), version -> bumpVersion());
+    }
+
+    @Override
+    public Flux<UserRecord> findAll() {
+        return Flux.concat(repositories.stream().map(ReactiveUserRepository::findAll).toList());
+    }
+
+    @Override
+    public Mono<UserRecord> findById(Long id) {
+        return repositories.get(userShards.shardOf(id)).findById(id);
+    }
+
+    @Override
+    public Flux<UserRecord> findAfter(Long id, int limit) {
+        long after = id == null ? 0L : id;
+        if (repositories.size() == 1) {
+            return repositories.getFirst().findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit));
+        }
+        Comparator<UserRecord> byId = Comparator.comparing(UserRecord::id);
+        // with the same comparator each mergeComparingWith adds its source to the one merge, not a nested one
+        return repositories.stream()
+                .map(repository -> repository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit)))
+                .reduce((merged, shard) -> merged.mergeComparingWith(shard, byId))
+                .orElseThrow()
+                .take(limit, true);
+    }
+
+    @Override
+    public Flux<UserRecord> streamAll(Long afterId, int pageSize) {
+        return KeysetPager.flux(afterId, pageSize, this::findAfter, UserRecord::id);
+    }
+
+    private Mono<UserRecord> insert(UserRecord obj) {
+        // the pool rarely waits on the id table, but when it does it blocks
+        return Mono.fromCallable(userIds::next).subscribeOn(Schedulers.boundedElastic())
+                .flatMap(id -> userReactiveShards.template(userShards.shardOf(id))
+                        .insert(new UserRecord(id, obj.name(), obj.lastName())));
+    }
+
+    private Mono<Void> bumpVersion() {
+        // the counter writes over JDBC
+        return Mono.<Void>fromRunnable(userTableVersion::bump).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,30 @@
+package com.henry.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The read path for responses: immutable records selected by constructor expressions in read-only transactions.
+ * They never enter the persistence context, so Hibernate keeps no snapshot to dirty-check and nothing to flush.
+ */
+public sealed interface RecordService<R, G> permits UserServiceImpl, CompanyServiceImpl, BrandServiceImpl {
+
+    /** Ids per {@code IN} list, well below Oracle's limit of 1000. */
+    int MAX_IN_LIST = 500;
+
+    /** Served from the store's near cache when present. */
+    R findRecordById(G id);
+
+    /**
+     * The records of {@code ids} in the order of their first occurrence, without duplicates and without the ids
+     * that don't exist. Cached records are served from the near cache, the others are read with {@code IN} lists
+     * of at most {@link #MAX_IN_LIST} ids.
+     */
+    List<R> findRecordsByIds(Collection<G> ids);
+    List<R> findAllRecords();
+
+    /** One keyset page, as {@link DefaultService#findAfter}. */
+    List<R> findRecordsAfter(G id, int limit);
+    Stream<R> streamRecords(G afterId, int pageSize);
+}
@@ -0,0 +1,198 @@
+package com.henry.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The binary snapshot format written by {@link TableExporter} and read by {@link SnapshotReader}. All numbers are
+ * big-endian, varints are unsigned LEB128 and longs are zigzag varints.
+ * <pre>
+ * file    = MAGIC, int headerLength, header, block*, int 0, long totalRows
+ * header  = byte version, byte flags (1 = deflated blocks), string entity, varint columnCount,
+ *           (string name, byte type)*
+ * block   = int rowCount (&gt; 0), int rawLength, int storedLength, byte[storedLength]
+ * rows    = per row, per column: LONG as a zigzag varint, STRING as varint (utf8Length + 1, 0 for null) and its bytes
+ * string  = varint utf8Length, utf8 bytes
+ * </pre>
+ * Blocks are independent, so they are encoded and compressed by the threads reading the table and land in the file in
+ * the order they finish, not in id order.
+ */
+public final class Snapshot {
+
+    public enum Type {
+        LONG, STRING
+    }
+
+    public record Column(String name, Type type) {
+    }
+
+    static final byte[] MAGIC = "HXSNAP".getBytes(StandardCharsets.US_ASCII);
+    static final byte VERSION = 1;
+    static final byte DEFLATED = 1;
+
+    private Snapshot() {
+    }
+
+    /** A growable byte array with the encodings of the format. */
+    static final class Buffer {
+
+        private byte[] bytes = new byte[4096];
+        private int length;
+
+        int length() {
+            return length;
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeLong(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            writeBytes(utf8, utf8.length);
+        }
+
+        void writeNullableString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length + 1L);
+            writeBytes(utf8, utf8.length);
+        }
+
+        void writeBytes(byte[] source, int count) {
+            ensure(count);
+            System.arraycopy(source, 0, bytes, length, count);
+            length += count;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+
+    /** Reads the encodings of {@link Buffer} back from {@code bytes[0, length)}. */
+    static final class Cursor {
+
+        private final byte[] bytes;
+        private final int length;
+        private int position;
+
+        Cursor(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        boolean hasRemaining() {
+            return position < length;
+        }
+
+        int readByte() {
+            if (position >= length) {
+                throw new IllegalStateException("Snapshot block ends in the middle of a row");
+            }
+            return bytes[position++];
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed varint in snapshot");
+        }
+
+        long readLong() {
+            long zigzag = readVarint();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        String readString() {
+            return utf8((int) readVarint());
+        }
+
+        String readNullableString() {
+            long length = readVarint();
+            return length == 0 ? null : utf8((int) length - 1);
+        }
+
+        private String utf8(int count) {
+            if (position + count > length) {
+                throw new IllegalStateException("Snapshot block ends in the middle of a string");
+            }
+            String value = new String(bytes, position, count, StandardCharsets.UTF_8);
+            position += count;
+            return value;
+        }
+    }
+
+    static byte[] deflate(byte[] raw, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw, 0, length);
+            deflater.finish();
+            Buffer out = new Buffer();
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                out.writeBytes(chunk, count);
+            }
+            return Arrays.copyOf(out.bytes(), out.length());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] inflate(byte[] stored, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int count = inflater.inflate(raw, length, rawLength - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += count;
+            }
+            if (length != rawLength) {
+                throw new IllegalStateException("Snapshot block inflates to " + length + " bytes, expected " + rawLength);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed snapshot block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.henry.service;
+
+import com.henry.service.Snapshot.Column;
+import com.henry.service.Snapshot.Type;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a {@link Snapshot} written by {@link TableExporter}. Rows come as one {@code Object[]} per row, a
+ * {@code Long} or {@code String} per column, in file order; a block is read, and inflated, only when the stream
+ * reaches it. The row count at the end of the file is checked, a truncated snapshot fails instead of looking short.
+ */
+public final class SnapshotReader implements Closeable {
+
+    private final FileChannel channel;
+    private final boolean deflated;
+    private final String entity;
+    private final List<Column> columns;
+
+    private SnapshotReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer start = read(Snapshot.MAGIC.length + 4);
+        byte[] magic = new byte[Snapshot.MAGIC.length];
+        start.get(magic);
+        if (!Arrays.equals(magic, Snapshot.MAGIC)) {
+            throw new IOException("Not a snapshot file");
+        }
+        ByteBuffer headerBytes = read(start.getInt());
+        Snapshot.Cursor header = new Snapshot.Cursor(headerBytes.array(), headerBytes.limit());
+        int version = header.readByte();
+        if (version != Snapshot.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        this.deflated = (header.readByte() & Snapshot.DEFLATED) != 0;
+        this.entity = header.readString();
+        int count = (int) header.readVarint();
+        List<Column> columns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            columns.add(new Column(header.readString(), Type.values()[header.readByte()]));
+        }
+        this.columns = List.copyOf(columns);
+    }
+
+    public static SnapshotReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new SnapshotReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public String entity() {
+        return entity;
+    }
+
+    public List<Column> columns() {
+        return columns;
+    }
+
+    /** Can be consumed once; I/O errors surface as {@link UncheckedIOException}. */
+    public Stream<Object[]> rows() {
+        Spliterator<Object[][]> blocks = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            private long rows;
+            private boolean done;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Object[][]> action) {
+                if (done) {
+                    return false;
+                }
+                try {
+                    ByteBuffer blockHeader = read(4);
+                    int count = blockHeader.getInt();
+                    if (count == 0) {
+                        long expected = read(8).getLong();
+                        if (expected != rows) {
+                            throw new IOException("Snapshot has " + rows + " rows, its trailer says " + expected);
+                        }
+                        done = true;
+                        return false;
+                    }
+                    ByteBuffer lengths = read(8);
+                    int rawLength = lengths.getInt();
+                    byte[] stored = read(lengths.getInt()).array();
+                    byte[] raw = deflated ? Snapshot.inflate(stored, rawLength) : stored;
+                    Snapshot.Cursor cursor = new Snapshot.Cursor(raw, rawLength);
+                    Object[][] block = new Object[count][];
+                    for (int i = 0; i < count; i++) {
+                        block[i] = row(cursor);
+                    }
+                    rows += count;
+                    action.accept(block);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(blocks, false).flatMap(Stream::of);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Object[] row(Snapshot.Cursor cursor) {
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = switch (columns.get(i).type()) {
+                case LONG -> cursor.readLong();
+                case STRING -> cursor.readNullableString();
+            };
+        }
+        return row;
+    }
+
+    private ByteBuffer read(int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Snapshot ends early, it may be truncated");
+            }
+        }
+        return buffer.flip();
+    }
+}
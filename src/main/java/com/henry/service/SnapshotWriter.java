@@ -0,0 +1,123 @@
+package com.henry.service;
+
+import com.henry.service.Snapshot.Column;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writes a {@link Snapshot} to {@code <file>.part} and moves it to {@code file} on {@link #commit()}, so a failed
+ * export never leaves a truncated snapshot under the real name. Blocks are filled and compressed by the calling
+ * threads, only the channel write is serialized.
+ */
+final class SnapshotWriter implements Closeable {
+
+    private final Path file;
+    private final Path part;
+    private final List<Column> columns;
+    private final boolean compress;
+    private final FileChannel channel;
+    private long rows;
+    private boolean committed;
+
+    SnapshotWriter(Path file, String entity, List<Column> columns, boolean compress) throws IOException {
+        this.file = file;
+        this.part = file.resolveSibling(file.getFileName() + ".part");
+        this.columns = columns;
+        this.compress = compress;
+        this.channel = FileChannel.open(part, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        Snapshot.Buffer header = new Snapshot.Buffer();
+        header.writeByte(Snapshot.VERSION);
+        header.writeByte(compress ? Snapshot.DEFLATED : 0);
+        header.writeString(entity);
+        header.writeVarint(columns.size());
+        for (Column column : columns) {
+            header.writeString(column.name());
+            header.writeByte(column.type().ordinal());
+        }
+        ByteBuffer start = ByteBuffer.allocate(Snapshot.MAGIC.length + 4 + header.length());
+        start.put(Snapshot.MAGIC).putInt(header.length()).put(header.bytes(), 0, header.length()).flip();
+        writeFully(start);
+    }
+
+    Block newBlock() {
+        return new Block();
+    }
+
+    /** Compresses {@code block} on the calling thread and appends it. */
+    void write(Block block) throws IOException {
+        if (block.rows == 0) {
+            return;
+        }
+        byte[] stored = compress ? Snapshot.deflate(block.buffer.bytes(), block.buffer.length()) : block.buffer.bytes();
+        int storedLength = compress ? stored.length : block.buffer.length();
+        ByteBuffer bytes = ByteBuffer.allocate(12 + storedLength);
+        bytes.putInt(block.rows).putInt(block.buffer.length()).putInt(storedLength).put(stored, 0, storedLength).flip();
+        synchronized (this) {
+            writeFully(bytes);
+            rows += block.rows;
+        }
+    }
+
+    synchronized long rows() {
+        return rows;
+    }
+
+    /** Ends the file with the row count and moves it to its real name; returns its size. */
+    synchronized long commit() throws IOException {
+        writeFully(ByteBuffer.allocate(12).putInt(0).putLong(rows).flip());
+        channel.force(true);
+        long size = channel.size();
+        channel.close();
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(part);
+        }
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /** Rows encoded by one reading thread. */
+    final class Block {
+
+        private final Snapshot.Buffer buffer = new Snapshot.Buffer();
+        private int rows;
+
+        int rows() {
+            return rows;
+        }
+
+        /** Encodes the current row of {@code resultSet}, whose columns are those of the snapshot in order. */
+        void add(ResultSet resultSet) throws SQLException {
+            for (int i = 0; i < columns.size(); i++) {
+                switch (columns.get(i).type()) {
+                    case LONG -> buffer.writeLong(resultSet.getLong(i + 1));
+                    case STRING -> buffer.writeNullableString(resultSet.getString(i + 1));
+                }
+            }
+            rows++;
+        }
+    }
+}
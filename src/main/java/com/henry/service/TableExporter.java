@@ -0,0 +1,224 @@
+package com.henry.service;
+
+import com.henry.configuration.DataSourceProperties;
+import com.henry.configuration.ShardRoutingDataSource;
+import com.henry.record.DataSourceRecord;
+import com.henry.record.ExportRecord;
+import com.henry.service.Snapshot.Column;
+import com.henry.service.Snapshot.Type;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Exports users, companies or brands to a {@link Snapshot} file. Each table is cut into {@code parallelism} id
+ * ranges between its lowest and highest id, per user shard, and every range is read on its own connection and
+ * thread, with the store's fetch size, and encoded into blocks of {@link #BLOCK_ROWS} rows.
+ * <p>
+ * Each range reads in its own read-only, repeatable-read transaction, so a range is consistent in itself and the
+ * export holds no row newer than the highest id seen when it started. Rows updated or deleted while the ranges
+ * run may show their old or new state depending on their range; stop writes for a point-in-time copy.
+ */
+@Service
+public class TableExporter {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+    static final int BLOCK_ROWS = 4096;
+
+    private static final Logger log = LoggerFactory.getLogger(TableExporter.class);
+
+    private final Map<String, Table> tables;
+    private final ExecutorService workers;
+
+    private record Table(String name, List<Column> columns, List<DataSource> dataSources, int fetchSize) {
+
+        String select() {
+            return "select " + columns.stream().map(Column::name).collect(Collectors.joining(", ")) + " from " + name
+                    + " where id between ? and ?";
+        }
+    }
+
+    private record Range(DataSource dataSource, long from, long to) {
+    }
+
+    public TableExporter(ShardRoutingDataSource userShards,
+                         @Qualifier("companyDataSource") DataSource companyDataSource,
+                         @Qualifier("brandDataSource") DataSource brandDataSource,
+                         DataSourceProperties dsProperties) {
+        List<DataSource> shards = IntStream.range(0, userShards.shardCount()).mapToObj(userShards::shard).toList();
+        this.tables = Map.of(
+                "users", table("users", List.of(new Column("id", Type.LONG), new Column("name", Type.STRING),
+                        new Column("last_name", Type.STRING)), shards, dsProperties.getMysql()),
+                "companies", table("companies", List.of(new Column("id", Type.LONG), new Column("name", Type.STRING)),
+                        List.of(companyDataSource), dsProperties.getPostgres()),
+                "brands", table("brands", List.of(new Column("id", Type.LONG), new Column("name", Type.STRING)),
+                        List.of(brandDataSource), dsProperties.getOracle()));
+        // one thread per range, the ranges spend most of their time waiting on the database
+        this.workers = Executors.newThreadPerTaskExecutor(Thread.ofPlatform().name("table-export-", 0).daemon()
+                .factory());
+    }
+
+    private static Table table(String name, List<Column> columns, List<DataSource> dataSources,
+                               DataSourceRecord record) {
+        return new Table(name, columns, dataSources, record.jdbcFetchSize());
+    }
+
+    /**
+     * Exports {@code entity}, one of {@code users}, {@code companies} or {@code brands}, to {@code file}, with each
+     * block deflated when {@code compress} is set. The file only appears once the whole table is written.
+     */
+    public ExportRecord export(String entity, Path file, boolean compress, int parallelism)
+            throws IOException, SQLException {
+        Table table = tables.get(entity);
+        if (table == null) {
+            throw new IllegalArgumentException("Unknown entity " + entity + ", expected one of " + tables.keySet());
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        long start = System.nanoTime();
+
+        List<Range> ranges = new ArrayList<>();
+        for (DataSource dataSource : table.dataSources()) {
+            ranges.addAll(ranges(dataSource, table.name(), parallelism));
+        }
+        try (SnapshotWriter writer = new SnapshotWriter(file, entity, table.columns(), compress)) {
+            AtomicBoolean failed = new AtomicBoolean();
+            List<Future<?>> futures = new ArrayList<>();
+            for (Range range : ranges) {
+                futures.add(workers.submit(() -> {
+                    try {
+                        read(table, range, writer, failed);
+                        return null;
+                    } catch (Exception e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }));
+            }
+            // after the first failure the other ranges stop at their next block
+            Throwable failure = ParallelWork.awaitAll(futures, failed);
+            if (failure != null) {
+                throw new IllegalStateException(entity + " export to " + file + " failed", failure);
+            }
+            long bytes = writer.commit();
+
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            log.info("{} export to {}: {} rows, {} bytes, {} ranges in {} ms", entity, file, writer.rows(), bytes,
+                    ranges.size(), elapsed.toMillis());
+            return new ExportRecord(entity, file.toString(), writer.rows(), bytes, elapsed);
+        }
+    }
+
+    /** Exports every table to {@code <dir>/<entity>.snap}, the three stores at the same time. */
+    public List<ExportRecord> exportAll(Path dir, boolean compress, int parallelism) throws IOException {
+        Files.createDirectories(dir);
+        try (ExecutorService stores = Executors.newThreadPerTaskExecutor(
+                Thread.ofPlatform().name("table-export-store-", 0).daemon().factory())) {
+            List<Future<ExportRecord>> futures = tables.keySet().stream().sorted()
+                    .map(entity -> stores.submit(() -> export(entity, dir.resolve(entity + ".snap"), compress,
+                            parallelism)))
+                    .toList();
+            List<ExportRecord> results = new ArrayList<>();
+            for (Future<ExportRecord> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Export to " + dir + " failed", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futures.forEach(pending -> pending.cancel(true));
+                    throw new IllegalStateException("Export to " + dir + " interrupted", e);
+                }
+            }
+            return results;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /** {@code parallelism} ranges of about the same width between the lowest and highest id, none when empty. */
+    private static List<Range> ranges(DataSource dataSource, String table, int parallelism) throws SQLException {
+        long min;
+        long max;
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select min(id), max(id) from " + table)) {
+            resultSet.next();
+            min = resultSet.getLong(1);
+            if (resultSet.wasNull()) {
+                return List.of();
+            }
+            max = resultSet.getLong(2);
+        }
+        long width = Math.max(1, Math.ceilDiv(max - min + 1, parallelism));
+        List<Range> ranges = new ArrayList<>();
+        for (long from = min; from <= max; from += width) {
+            ranges.add(new Range(dataSource, from, Math.min(max, from + width - 1)));
+        }
+        return ranges;
+    }
+
+    private static void read(Table table, Range range, SnapshotWriter writer, AtomicBoolean failed)
+            throws SQLException, IOException {
+        if (failed.get()) {
+            return;
+        }
+        try (Connection connection = range.dataSource().getConnection()) {
+            connection.setReadOnly(true);
+            connection.setAutoCommit(false);
+            // Oracle has no repeatable read, its serializable read-only transaction reads one snapshot too
+            connection.setTransactionIsolation(connection.getMetaData()
+                    .supportsTransactionIsolationLevel(Connection.TRANSACTION_REPEATABLE_READ)
+                    ? Connection.TRANSACTION_REPEATABLE_READ : Connection.TRANSACTION_SERIALIZABLE);
+            try (PreparedStatement statement = connection.prepareStatement(table.select(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(table.fetchSize());
+                statement.setLong(1, range.from());
+                statement.setLong(2, range.to());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    SnapshotWriter.Block block = writer.newBlock();
+                    while (resultSet.next()) {
+                        block.add(resultSet);
+                        if (block.rows() == BLOCK_ROWS) {
+                            if (failed.get()) {
+                                return;
+                            }
+                            writer.write(block);
+                            block = writer.newBlock();
+                        }
+                    }
+                    writer.write(block);
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+}
@@ -1,30 +1,251 @@
 package com.henry.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.collect.Lists;
+import com.henry.configuration.ConcurrencyLimiter;
+import com.henry.configuration.ShardRoutingDataSource;
+import com.henry.model.id.IdBlockPool;
 import com.henry.model.user.User;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.UserRecord;
 import com.henry.repository.user.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Users are sharded by id over the data sources of {@link ShardRoutingDataSource}, a single shard unless
+ * {@code sharding.shards} are configured. New users get their id from {@code userIds} before the insert, so
+ * the id, unique across all shards, decides where the row goes. Reads by id go to one shard, everything else
+ * is scattered to all shards in parallel and gathered here. Writes to several shards are one transaction per
+ * shard, not atomic as a whole.
+ */
 @Service
-public final class UserServiceImpl implements DefaultService<User,Long> {
+public final class UserServiceImpl implements DefaultService<User,Long>, RecordService<UserRecord, Long> {
 
     private final UserRepository userRepository;
+    private final Cache<Long, UserRecord> userCache;
+    private final ShardRoutingDataSource userShards;
+    private final IdBlockPool userIds;
+    private final TableVersionCounter userTableVersion;
+    private final ConcurrencyLimiter userLimiter;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
-    public UserServiceImpl(UserRepository userRepository) {
+    // a proxy resolved on first call: the LAZY repository bootstrap doesn't reach injection points under AOT
+    public UserServiceImpl(@Lazy UserRepository userRepository, Cache<Long, UserRecord> userCache,
+                           ShardRoutingDataSource userShards, IdBlockPool userIds,
+                           TableVersionCounter userTableVersion, ConcurrencyLimiter userLimiter) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.userShards = userShards;
+        this.userIds = userIds;
+        this.userTableVersion = userTableVersion;
+        this.userLimiter = userLimiter;
     }
 
     @Override
     public User save(User obj) {
-        return userRepository.save(obj);
+        User saved;
+        if (obj.getId() == null) {
+            obj.setId(userIds.next());
+            saved = onShard(userShards.shardOf(obj.getId()), () -> userRepository.insert(obj));
+        } else {
+            saved = onShard(userShards.shardOf(obj.getId()), () -> userRepository.save(obj));
+        }
+        // bumped before the invalidation, see NearCacheLoads
+        userTableVersion.bump();
+        userCache.invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public Iterable<User> saveAll(Iterable<User> objs) {
+        List<User> users = new ArrayList<>();
+        objs.forEach(users::add);
+        boolean[] fresh = new boolean[users.size()];
+        Map<Integer, List<Integer>> rowsByShard = new TreeMap<>();
+        for (int row = 0; row < users.size(); row++) {
+            User user = users.get(row);
+            if (user.getId() == null) {
+                user.setId(userIds.next());
+                fresh[row] = true;
+            }
+            rowsByShard.computeIfAbsent(userShards.shardOf(user.getId()), shard -> new ArrayList<>()).add(row);
+        }
+
+        User[] saved = new User[users.size()];
+        scatter(rowsByShard.keySet().stream().mapToInt(Integer::intValue).toArray(), shard -> {
+            saveOnShard(shard, rowsByShard.get(shard), users, fresh, saved);
+            return shard;
+        });
+        userTableVersion.bump();
+        Arrays.stream(saved).forEach(obj -> userCache.invalidate(obj.getId()));
+        return Arrays.asList(saved);
     }
 
     @Override
     public Iterable<User> findAll() {
-        return userRepository.findAll();
+        return scatter(allShards(), shard -> onShard(shard, userRepository::findAll)).stream()
+                .flatMap(users -> StreamSupport.stream(users.spliterator(), false))
+                .toList();
     }
 
     @Override
     public User findById(Long id) {
-        return userRepository.findById(id).get();
+        return onShard(userShards.shardOf(id), () -> userRepository.findById(id)).get();
+    }
+
+    /** Every shard's first {@code limit} rows after {@code id}, merged by id and cut to {@code limit}. */
+    @Override
+    public List<User> findAfter(Long id, int limit) {
+        long after = id == null ? 0L : id;
+        return scatter(allShards(), shard -> onShard(shard,
+                        () -> userRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit)))).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(User::getId))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Stream<User> streamAll(Long afterId, int pageSize) {
+        return KeysetPager.stream(afterId, pageSize, this::findAfter, User::getId);
+    }
+
+    @Override
+    public UserRecord findRecordById(Long id) {
+        UserRecord cached = userCache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = userTableVersion.current();
+        UserRecord loaded = onShard(userShards.shardOf(id), () -> userRepository.findRecordById(id)).get();
+        NearCacheLoads.put(userCache, userTableVersion, seen, Map.of(id, loaded));
+        return loaded;
+    }
+
+    /** The ids missing from the near cache are grouped by shard, and the shards are read in parallel. */
+    @Override
+    public List<UserRecord> findRecordsByIds(Collection<Long> ids) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, UserRecord> found = new HashMap<>(userCache.getAllPresent(distinct));
+        Map<Integer, List<Long>> missingByShard = distinct.stream()
+                .filter(id -> !found.containsKey(id))
+                .collect(Collectors.groupingBy(userShards::shardOf, TreeMap::new, Collectors.toList()));
+        long seen = userTableVersion.current();
+        List<List<UserRecord>> loaded = scatter(missingByShard.keySet().stream().mapToInt(Integer::intValue).toArray(),
+                shard -> Lists.partition(missingByShard.get(shard), MAX_IN_LIST).stream()
+                        .flatMap(chunk -> onShard(shard, () -> userRepository.findRecordsByIdIn(chunk)).stream())
+                        .toList());
+        Map<Long, UserRecord> byId = loaded.stream().flatMap(List::stream)
+                .collect(Collectors.toMap(UserRecord::id, record -> record));
+        NearCacheLoads.put(userCache, userTableVersion, seen, byId);
+        found.putAll(byId);
+        return distinct.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public List<UserRecord> findAllRecords() {
+        return scatter(allShards(), shard -> onShard(shard, userRepository::findRecordsBy)).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    @Override
+    public List<UserRecord> findRecordsAfter(Long id, int limit) {
+        long after = id == null ? 0L : id;
+        return scatter(allShards(), shard -> onShard(shard,
+                        () -> userRepository.findRecordsByIdGreaterThanOrderByIdAsc(after, Limit.of(limit)))).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(UserRecord::id))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Stream<UserRecord> streamRecords(Long afterId, int pageSize) {
+        return KeysetPager.stream(afterId, pageSize, this::findRecordsAfter, UserRecord::id);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void saveOnShard(int shard, List<Integer> rows, List<User> users, boolean[] fresh, User[] saved) {
+        List<User> inserts = new ArrayList<>();
+        List<Integer> mergedRows = new ArrayList<>();
+        for (int row : rows) {
+            if (fresh[row]) {
+                inserts.add(users.get(row));
+                saved[row] = users.get(row);
+            } else {
+                mergedRows.add(row);
+            }
+        }
+        onShard(shard, () -> {
+            if (!inserts.isEmpty()) {
+                userRepository.insertAll(inserts);
+            }
+            if (!mergedRows.isEmpty()) {
+                Iterator<User> merged = userRepository.saveAll(mergedRows.stream().map(users::get).toList()).iterator();
+                mergedRows.forEach(row -> saved[row] = merged.next());
+            }
+            return null;
+        });
+    }
+
+    /** Runs {@code action} on {@code shard} within the store's concurrency limit, each shard call takes one slot. */
+    private <T> T onShard(int shard, Supplier<T> action) {
+        return userLimiter.call(() -> userShards.on(shard, action));
+    }
+
+    private int[] allShards() {
+        return IntStream.range(0, userShards.shardCount()).toArray();
+    }
+
+    /** Runs one task per shard, on virtual threads when there is more than one, and waits for all of them. */
+    private <T> List<T> scatter(int[] shards, IntFunction<T> task) {
+        if (shards.length == 1) {
+            return List.of(task.apply(shards[0]));
+        }
+        List<Future<T>> futures = Arrays.stream(shards)
+                .mapToObj(shard -> executor.submit(() -> task.apply(shard)))
+                .toList();
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("interrupted while waiting for the user shards", e);
+        }
+        return results;
     }
 }
@@ -0,0 +1,114 @@
+package com.henry;
+
+import com.henry.configuration.DataSourceProperties;
+import com.henry.configuration.StoreReadiness;
+import com.henry.record.AggregateRecord;
+import com.henry.record.BrandRecord;
+import com.henry.record.CompanyRecord;
+import com.henry.record.UserRecord;
+import com.henry.service.AggregateService;
+import com.henry.service.BatchLoader;
+import com.henry.service.BrandServiceImpl;
+import com.henry.service.CompanyServiceImpl;
+import com.henry.service.UserServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.BadSqlGrammarException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AggregateServiceTest {
+
+    @Mock
+    private UserServiceImpl userService;
+
+    @Mock
+    private CompanyServiceImpl companyService;
+
+    @Mock
+    private BrandServiceImpl brandService;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private DataSourceProperties dsProperties;
+
+    private AggregateService aggregateService;
+
+    @BeforeEach
+    void setUp() {
+        when(dsProperties.getMysql().callTimeout()).thenReturn(Duration.ofSeconds(1));
+        when(dsProperties.getPostgres().callTimeout()).thenReturn(Duration.ofSeconds(1));
+        when(dsProperties.getOracle().callTimeout()).thenReturn(Duration.ofMillis(100));
+        aggregateService = new AggregateService(
+                new BatchLoader<>("users", userService::findRecordById, userService::findRecordsByIds,
+                        UserRecord::id, false, Duration.ZERO, 1, Duration.ofSeconds(1)),
+                new BatchLoader<>("companies", companyService::findRecordById, companyService::findRecordsByIds,
+                        CompanyRecord::id, false, Duration.ZERO, 1, Duration.ofSeconds(1)),
+                new BatchLoader<>("brands", brandService::findRecordById, brandService::findRecordsByIds,
+                        BrandRecord::id, false, Duration.ZERO, 1, Duration.ofSeconds(1)),
+                dsProperties, new StoreReadiness());
+    }
+
+    @AfterEach
+    void tearDown() {
+        aggregateService.shutdown();
+    }
+
+    @Test
+    void testSlowStoreOnlyBlanksItsOwnPart() {
+        UserRecord user = new UserRecord(1L, "John", "Doe");
+        CompanyRecord company = new CompanyRecord(2L, "Test Corp");
+
+        when(userService.findRecordById(1L)).thenReturn(user);
+        when(companyService.findRecordById(2L)).thenReturn(company);
+        when(brandService.findRecordById(3L)).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return new BrandRecord(3L, null);
+        });
+
+        long start = System.nanoTime();
+        AggregateRecord result = aggregateService.findById(1L, 2L, 3L);
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1_000);
+        assertEquals(user, result.user());
+        assertEquals(company, result.company());
+        assertNull(result.brand());
+        assertEquals(Map.of("brands", "timed out after 100 ms"), result.errors());
+    }
+
+    @Test
+    void testMissingEntityIsReportedAsNotFound() {
+        when(userService.findRecordById(1L)).thenThrow(new NoSuchElementException());
+
+        AggregateRecord result = aggregateService.findById(1L, null, null);
+
+        assertNull(result.user());
+        assertEquals(Map.of("users", "not found"), result.errors());
+    }
+
+    @Test
+    void testFailuresAreReportedWithoutTheirMessages() {
+        when(userService.findRecordById(1L)).thenThrow(new BadSqlGrammarException("findRecordById",
+                "select u.id from users u where u.id=?", new SQLException("no such column on db-01.internal")));
+        when(companyService.findRecordById(2L)).thenThrow(
+                new DataAccessResourceFailureException("Connection refused: db-02.internal:5432"));
+
+        AggregateRecord result = aggregateService.findById(1L, 2L, null);
+
+        assertEquals(Map.of("users", "failed", "companies", "unavailable"), result.errors());
+    }
+}
@@ -0,0 +1,139 @@
+package com.henry;
+
+import com.henry.record.CompanyRecord;
+import com.henry.service.BatchLoader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchLoaderTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final List<List<Long>> batches = new CopyOnWriteArrayList<>();
+    private BatchLoader<CompanyRecord> batchLoader;
+
+    @AfterEach
+    void tearDown() {
+        batchLoader.close();
+    }
+
+    @Test
+    void testConcurrentLookupsShareOneQueryWithoutDuplicates() {
+        batchLoader = new BatchLoader<>("companies", this::loadOne, this::loadBatch, CompanyRecord::id,
+                true, Duration.ofMillis(200), 50, TIMEOUT);
+
+        List<CompletableFuture<CompanyRecord>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(batchLoader.submit((long) i % 5));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("company" + i % 5, futures.get(i).join().name());
+        }
+        assertSame(futures.get(0).join(), futures.get(5).join());
+        assertEquals(List.of(List.of(0L, 1L, 2L, 3L, 4L)), batches);
+    }
+
+    @Test
+    void testMissingIdOnlyFailsItsOwnCallers() {
+        batchLoader = new BatchLoader<>("companies", this::loadOne, this::loadBatch, CompanyRecord::id,
+                true, Duration.ofMillis(200), 50, TIMEOUT);
+
+        CompletableFuture<CompanyRecord> found = batchLoader.submit(1L);
+        CompletableFuture<CompanyRecord> missing = batchLoader.submit(-1L);
+
+        assertEquals("company1", found.join().name());
+        CompletionException error = assertThrows(CompletionException.class, missing::join);
+        assertInstanceOf(NoSuchElementException.class, error.getCause());
+        assertThrows(NoSuchElementException.class, () -> batchLoader.load(-1L));
+    }
+
+    @Test
+    void testDisabledLoadsDirectly() {
+        batchLoader = new BatchLoader<>("companies", this::loadOne, this::loadBatch, CompanyRecord::id,
+                false, Duration.ofMillis(200), 50, TIMEOUT);
+
+        assertEquals("company7", batchLoader.load(7L).name());
+        assertEquals(0, batches.size());
+    }
+
+    @Test
+    void testErrorInTheBatchStillAnswersEveryCaller() {
+        batchLoader = new BatchLoader<>("companies", this::loadOne, ids -> {
+            throw new NoClassDefFoundError("com/example/Missing");
+        }, CompanyRecord::id, true, Duration.ofMillis(20), 50, TIMEOUT);
+
+        CompletableFuture<CompanyRecord> first = batchLoader.submit(1L);
+        CompletableFuture<CompanyRecord> second = batchLoader.submit(2L);
+
+        CompletionException error = assertThrows(CompletionException.class, first::join);
+        assertInstanceOf(NoClassDefFoundError.class, error.getCause());
+        assertThrows(CompletionException.class, second::join);
+    }
+
+    @Test
+    void testLoadGivesUpAfterTheTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        batchLoader = new BatchLoader<>("companies", this::loadOne, ids -> {
+            awaitUninterruptibly(release);
+            return loadBatch(ids);
+        }, CompanyRecord::id, true, Duration.ofMillis(1), 50, Duration.ofMillis(100));
+
+        try {
+            assertThrows(QueryTimeoutException.class, () -> batchLoader.load(1L));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testSubmitAfterCloseIsRefused() {
+        batchLoader = new BatchLoader<>("companies", this::loadOne, this::loadBatch, CompanyRecord::id,
+                true, Duration.ofMillis(1), 50, TIMEOUT);
+        batchLoader.close();
+
+        CompletionException error = assertThrows(CompletionException.class, batchLoader.submit(1L)::join);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertThrows(IllegalStateException.class, () -> batchLoader.load(1L));
+        assertEquals(0, batches.size());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompanyRecord loadOne(Long id) {
+        return new CompanyRecord(id, "company" + id);
+    }
+
+    private List<CompanyRecord> loadBatch(List<Long> ids) {
+        batches.add(List.copyOf(ids));
+        return ids.stream().filter(id -> id >= 0).map(this::loadOne).toList();
+    }
+}
@@ -0,0 +1,57 @@
+package com.henry;
+
+import com.henry.model.brand.Brand;
+import com.henry.service.DefaultService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** An existing brands table whose ids came from hibernate_sequences, before brands_seq was created. */
+@SpringBootTest(properties = {
+        "spring.datasource.oracle.url=" + BrandIdSeedTest.URL,
+        "spring.datasource.oracle.ddlAuto=update",
+        // own databases: create-drop on the shared ones would reset them under the other cached contexts
+        "spring.datasource.mysql.url=jdbc:h2:mem:test_db_brand_seed;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.postgres.url=jdbc:h2:mem:postgre_brand_seed;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("embedded")
+class BrandIdSeedTest {
+
+    static final String URL = "jdbc:h2:mem:xe_legacy;MODE=Oracle;DB_CLOSE_DELAY=-1";
+
+    static {
+        // runs before the application context is built
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table brands (id bigint not null primary key, name varchar(255))");
+            statement.execute("insert into brands (id, name) values (1, 'legacy'), (250, 'legacy')");
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Autowired
+    private DefaultService<Brand, Long> brandService;
+
+    @Test
+    void testNewSequenceStartsPastTheExistingIds() {
+        List<Long> ids = IntStream.range(0, 150)
+                .mapToObj(i -> brandService.save(Brand.builder().name("new-" + i).build()).getId())
+                .toList();
+
+        assertTrue(ids.stream().allMatch(id -> id > 250), "reused an existing id: " + ids);
+        assertEquals(150, new HashSet<>(ids).size());
+    }
+}
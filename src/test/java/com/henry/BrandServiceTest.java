@@ -1,20 +1,30 @@
 package com.henry;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
+import com.henry.configuration.ConcurrencyLimiter;
 import com.henry.model.brand.Brand;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.BrandRecord;
 import com.henry.repository.brand.BrandRepository;
 import com.henry.service.BrandServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -24,6 +34,15 @@ class BrandServiceTest {
     @Mock
     private BrandRepository brandRepository;
 
+    @Spy
+    private Cache<Long, BrandRecord> brandCache = CacheBuilder.newBuilder().recordStats().build();
+
+    @Mock
+    private TableVersionCounter brandTableVersion;
+
+    @Spy
+    private ConcurrencyLimiter brandLimiter = new ConcurrencyLimiter("oracle", true, 20, 2, 200, 1.5, Duration.ofSeconds(1));
+
     @InjectMocks
     private BrandServiceImpl brandService;
 
@@ -40,6 +59,22 @@ class BrandServiceTest {
 
         assertEquals(brand, saved);
         verify(brandRepository).save(any());
+        verify(brandTableVersion).bump();
+    }
+
+    @Test
+    void testSaveAllBrands() {
+        List<Brand> brands = List.of(
+                Brand.builder().id(1L).name("Test Brand").build(),
+                Brand.builder().id(2L).name("Demo Brand").build());
+
+        when(brandRepository.saveAll(brands)).thenReturn(brands);
+
+        Iterable<Brand> saved = brandService.saveAll(brands);
+
+        assertEquals(2, Iterables.size(saved));
+        verify(brandRepository).saveAll(brands);
+        verify(brandTableVersion).bump();
     }
 
     @Test
@@ -75,4 +110,38 @@ class BrandServiceTest {
         assertEquals(brand, result);
         verify(brandRepository).findById(1L);
     }
+
+    @Test
+    void testFindBrandRecordByIdIsCachedUntilSaved() {
+        Brand brand = Brand.builder()
+                .id(1L)
+                .name("Cached")
+                .build();
+
+        when(brandRepository.findRecordById(1L)).thenReturn(Optional.of(new BrandRecord(1L, "Cached")));
+        when(brandRepository.save(brand)).thenReturn(brand);
+
+        brandService.findRecordById(1L);
+        brandService.findRecordById(1L);
+        brandService.save(brand);
+        brandService.findRecordById(1L);
+
+        verify(brandRepository, times(2)).findRecordById(1L);
+        assertEquals(1, brandCache.stats().hitCount());
+    }
+
+    @Test
+    void testStreamAllBrandsPagesByKeyset() {
+        Brand first = Brand.builder().id(1L).name("Test Brand").build();
+        Brand second = Brand.builder().id(2L).name("Demo Brand").build();
+        Brand third = Brand.builder().id(3L).name("Acme Brand").build();
+
+        when(brandRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(first, second));
+        when(brandRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(2))).thenReturn(List.of(third));
+
+        List<Brand> result = brandService.streamAll(null, 2).toList();
+
+        assertEquals(List.of(first, second, third), result);
+        verify(brandRepository, times(2)).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.henry;
+
+import com.henry.configuration.BulkheadDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkheadDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @Test
+    void testRejectsCallersBeyondTheLimitUntilAConnectionIsClosed() throws SQLException {
+        Connection physical = mock(Connection.class);
+        when(target.getConnection()).thenReturn(physical);
+        BulkheadDataSource dataSource = new BulkheadDataSource("mysql-pool", target, 1, Duration.ofMillis(10));
+
+        Connection first = dataSource.getConnection();
+        assertEquals(1, dataSource.inFlight());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close();
+        verify(physical, times(2)).close();
+        assertEquals(0, dataSource.inFlight());
+
+        dataSource.getConnection().close();
+        assertEquals(0, dataSource.inFlight());
+    }
+
+    @Test
+    void testReleasesThePermitWhenTheTargetFails() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("connection refused"));
+        BulkheadDataSource dataSource = new BulkheadDataSource("oracle-pool", target, 1, Duration.ofMillis(10));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.inFlight());
+    }
+}
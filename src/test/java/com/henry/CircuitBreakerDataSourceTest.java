@@ -0,0 +1,88 @@
+package com.henry;
+
+import com.henry.configuration.CircuitBreakerDataSource;
+import com.henry.configuration.CircuitBreakerDataSource.CircuitOpenException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakerDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @Test
+    void testOpensAfterConnectFailuresAndClosesAfterAGoodProbe() throws SQLException, InterruptedException {
+        Connection physical = mock(Connection.class);
+        when(target.getConnection())
+                .thenThrow(new SQLTransientConnectionException("connect timed out"))
+                .thenThrow(new SQLTransientConnectionException("connect timed out"))
+                .thenReturn(physical);
+        CircuitBreakerDataSource dataSource = new CircuitBreakerDataSource("oracle-pool", target, true, 2,
+                Duration.ofMillis(200), null);
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(CircuitBreakerDataSource.State.CLOSED, dataSource.state());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(CircuitBreakerDataSource.State.OPEN, dataSource.state());
+
+        long start = System.nanoTime();
+        CircuitOpenException open = assertThrows(CircuitOpenException.class, dataSource::getConnection);
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(50).toNanos());
+        assertTrue(open.retryAfter().toMillis() <= 200);
+        verify(target, times(2)).getConnection();
+
+        Thread.sleep(250);
+        Connection probe = dataSource.getConnection();
+        assertEquals(CircuitBreakerDataSource.State.HALF_OPEN, dataSource.state());
+        assertThrows(CircuitOpenException.class, dataSource::getConnection);
+        probe.close();
+        assertEquals(CircuitBreakerDataSource.State.CLOSED, dataSource.state());
+        verify(physical).close();
+    }
+
+    @Test
+    void testQueryTimeoutsCountButStatementErrorsDont() throws SQLException {
+        Connection physical = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(physical);
+        when(physical.prepareStatement("select 1")).thenReturn(statement);
+        when(statement.executeQuery())
+                .thenThrow(new SQLIntegrityConstraintViolationException("duplicate key", "23505"))
+                .thenThrow(new SQLTimeoutException("query timed out"));
+        CircuitBreakerDataSource dataSource = new CircuitBreakerDataSource("postgres-pool", target, true, 1,
+                Duration.ofSeconds(5), Duration.ofMillis(1500));
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertThrows(SQLIntegrityConstraintViolationException.class,
+                    () -> connection.prepareStatement("select 1").executeQuery());
+        }
+        assertEquals(CircuitBreakerDataSource.State.CLOSED, dataSource.state());
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertThrows(SQLTimeoutException.class, () -> connection.prepareStatement("select 1").executeQuery());
+        }
+        assertEquals(CircuitBreakerDataSource.State.OPEN, dataSource.state());
+        // 1.5 s rounded up to whole seconds
+        verify(statement, times(2)).setQueryTimeout(2);
+    }
+}
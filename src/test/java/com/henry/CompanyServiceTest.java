@@ -1,20 +1,33 @@
 package com.henry;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
+import com.henry.configuration.ConcurrencyLimiter;
 import com.henry.model.company.Company;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.CompanyRecord;
 import com.henry.repository.company.CompanyRepository;
 import com.henry.service.CompanyServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -24,6 +37,15 @@ class CompanyServiceTest {
     @Mock
     private CompanyRepository companyRepository;
 
+    @Spy
+    private Cache<Long, CompanyRecord> companyCache = CacheBuilder.newBuilder().recordStats().build();
+
+    @Mock
+    private TableVersionCounter companyTableVersion;
+
+    @Spy
+    private ConcurrencyLimiter companyLimiter = new ConcurrencyLimiter("postgres", true, 20, 2, 200, 1.5, Duration.ofSeconds(1));
+
     @InjectMocks
     private CompanyServiceImpl companyService;
 
@@ -41,6 +63,22 @@ class CompanyServiceTest {
 
         assertEquals(company, saved);
         verify(companyRepository).save(any());
+        verify(companyTableVersion).bump();
+    }
+
+    @Test
+    void testSaveAllCompanies() {
+        List<Company> companys = List.of(
+                Company.builder().id(1L).name("Test Corp").build(),
+                Company.builder().id(2L).name("Demo Corp").build());
+
+        when(companyRepository.saveAll(companys)).thenReturn(companys);
+
+        Iterable<Company> saved = companyService.saveAll(companys);
+
+        assertEquals(2, Iterables.size(saved));
+        verify(companyRepository).saveAll(companys);
+        verify(companyTableVersion).bump();
     }
 
     @Test
@@ -77,4 +115,75 @@ class CompanyServiceTest {
         assertEquals(company, result);
         verify(companyRepository).findById(1L);
     }
+
+    @Test
+    void testFindCompanyRecordByIdIsCachedUntilSaved() {
+        Company company = Company.builder()
+                .id(1L)
+                .name("Cached")
+                .build();
+
+        when(companyRepository.findRecordById(1L)).thenReturn(Optional.of(new CompanyRecord(1L, "Cached")));
+        when(companyRepository.save(company)).thenReturn(company);
+
+        companyService.findRecordById(1L);
+        companyService.findRecordById(1L);
+        companyService.save(company);
+        companyService.findRecordById(1L);
+
+        verify(companyRepository, times(2)).findRecordById(1L);
+        assertEquals(1, companyCache.stats().hitCount());
+    }
+
+    @Test
+    void testReadRacingASaveDoesNotCacheTheOldRecord() {
+        Company renamed = Company.builder().id(1L).name("New").build();
+        when(companyTableVersion.current()).thenReturn(5L, 6L);
+        when(companyRepository.save(renamed)).thenReturn(renamed);
+        when(companyRepository.findRecordById(1L)).thenAnswer(invocation -> {
+            // the save commits and invalidates while the old row is on its way back
+            companyService.save(renamed);
+            return Optional.of(new CompanyRecord(1L, "Old"));
+        });
+
+        assertEquals("Old", companyService.findRecordById(1L).name());
+
+        assertNull(companyCache.getIfPresent(1L));
+    }
+
+    @Test
+    void testFindRecordsByIdsSkipsCachedAndRepeatedIds() {
+        companyCache.put(1L, new CompanyRecord(1L, "Cached"));
+        when(companyRepository.findRecordsByIdIn(List.of(3L, 2L))).thenReturn(List.of(new CompanyRecord(2L, "Loaded")));
+
+        List<CompanyRecord> found = companyService.findRecordsByIds(List.of(3L, 1L, 2L, 3L, 1L));
+
+        assertEquals(List.of(new CompanyRecord(1L, "Cached"), new CompanyRecord(2L, "Loaded")), found);
+        assertEquals(new CompanyRecord(2L, "Loaded"), companyCache.getIfPresent(2L));
+    }
+
+    @Test
+    void testFindRecordsByIdsChunksTheInList() {
+        List<Long> ids = LongStream.rangeClosed(1, 1200).boxed().toList();
+        when(companyRepository.findRecordsByIdIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<List<Long>>getArgument(0).stream().map(id -> new CompanyRecord(id, "c" + id)).toList());
+
+        assertEquals(ids, companyService.findRecordsByIds(ids).stream().map(CompanyRecord::id).toList());
+        verify(companyRepository, times(3)).findRecordsByIdIn(anyCollection());
+    }
+
+    @Test
+    void testStreamAllCompaniesPagesByKeyset() {
+        Company first = Company.builder().id(1L).name("Test Corp").build();
+        Company second = Company.builder().id(2L).name("Demo Corp").build();
+        Company third = Company.builder().id(3L).name("Acme Corp").build();
+
+        when(companyRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(first, second));
+        when(companyRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(2))).thenReturn(List.of(third));
+
+        List<Company> result = companyService.streamAll(null, 2).toList();
+
+        assertEquals(List.of(first, second, third), result);
+        verify(companyRepository, times(2)).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.henry;
+
+import com.henry.configuration.ConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void testCallsOverTheLimitAreRejectedWithRetryAfter() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("oracle", true, 2, 2, 2, 1.5, Duration.ofSeconds(3));
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> holders = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            holders.add(Thread.ofVirtual().start(() -> limiter.run(() -> {
+                started.countDown();
+                await(release);
+            })));
+        }
+        started.await();
+
+        ConcurrencyLimiter.Rejected rejected = assertThrows(ConcurrencyLimiter.Rejected.class,
+                () -> limiter.call(() -> "never runs"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+        assertEquals("3", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, limiter.rejected());
+        release.countDown();
+        for (Thread holder : holders) {
+            holder.join();
+        }
+        assertEquals(0, limiter.inFlight());
+        assertEquals("ok", limiter.call(() -> "ok"));
+    }
+
+    @Test
+    void testOnlyOverloadFailuresLowerTheLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("postgres", true, 20, 2, 200, 1.5, Duration.ofSeconds(1));
+
+        assertThrows(NoSuchElementException.class, () -> limiter.run(() -> {
+            throw new NoSuchElementException();
+        }));
+        assertEquals(20, limiter.limit());
+
+        assertThrows(CannotCreateTransactionException.class, () -> limiter.run(() -> {
+            throw new CannotCreateTransactionException("connection timed out");
+        }));
+        assertEquals(18, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void testLimitShrinksWhenTheStoreSlowsDownAndRecovers() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("mysql", true, 20, 2, 200, 1.5, Duration.ofSeconds(1));
+        AtomicLong latencyMillis = new AtomicLong(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            callers.add(Thread.ofVirtual().start(() -> {
+                while (running.get()) {
+                    try {
+                        limiter.run(() -> sleep(latencyMillis.get()));
+                    } catch (ConcurrencyLimiter.Rejected e) {
+                        sleep(1);
+                    }
+                }
+            }));
+        }
+
+        Thread.sleep(500);
+        int healthy = limiter.limit();
+        latencyMillis.set(30);
+        Thread.sleep(1500);
+        int slow = limiter.limit();
+        long rejectedWhileSlow = limiter.rejected();
+        latencyMillis.set(1);
+        Thread.sleep(1000);
+        int recovered = limiter.limit();
+        running.set(false);
+        for (Thread caller : callers) {
+            caller.join();
+        }
+
+        assertTrue(slow < healthy / 2, "limit " + healthy + " while healthy, " + slow + " while slow");
+        assertTrue(rejectedWhileSlow > 0);
+        assertTrue(recovered > slow, "limit " + slow + " while slow, " + recovered + " after recovery");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
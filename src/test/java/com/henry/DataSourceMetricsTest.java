@@ -0,0 +1,65 @@
+package com.henry;
+
+import com.henry.model.user.User;
+import com.henry.service.DefaultService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class DataSourceMetricsTest {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private DefaultService<User, Long> userService;
+
+    @Autowired
+    @Qualifier("companyTransactionManager")
+    private PlatformTransactionManager companyTransactionManager;
+
+    @Test
+    void testRepositoryCallsAreTaggedWithTheirStore() {
+        userService.saveAll(List.of(User.builder().name("a").build(), User.builder().name("b").build()));
+        userService.findAll();
+
+        assertTrue(registry.get("datasource.query")
+                .tags("datasource", "mysql", "repository", "UserRepository", "operation", "findAll")
+                .timer().count() > 0);
+        assertTrue(registry.get("datasource.query.rows")
+                .tags("datasource", "mysql", "operation", "findAll")
+                .summary().max() >= 2);
+        assertTrue(registry.get("datasource.transaction")
+                .tags("datasource", "mysql", "outcome", "commit")
+                .timer().count() > 0);
+        assertTrue(registry.get("datasource.connection.acquire")
+                .tags("datasource", "mysql", "pool", "mysql-pool")
+                .timer().count() > 0);
+    }
+
+    @Test
+    void testRollbacksAreCounted() {
+        double before = registry.get("datasource.transaction.rollbacks").tags("datasource", "postgres")
+                .counter().count();
+
+        new TransactionTemplate(companyTransactionManager).executeWithoutResult(status -> status.setRollbackOnly());
+
+        assertEquals(before + 1, registry.get("datasource.transaction.rollbacks").tags("datasource", "postgres")
+                .counter().count());
+        assertNotNull(registry.find("datasource.transaction").tags("datasource", "postgres", "outcome", "rollback")
+                .timer());
+    }
+}
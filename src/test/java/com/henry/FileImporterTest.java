@@ -0,0 +1,82 @@
+package com.henry;
+
+import com.henry.record.ImportRecord;
+import com.henry.service.FileImporter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class FileImporterTest {
+
+    private static final long CHUNK_BYTES = 2048;
+
+    @Autowired
+    private FileImporter fileImporter;
+
+    @Autowired
+    @Qualifier("userDataSource")
+    private DataSource userDataSource;
+
+    @Autowired
+    @Qualifier("companyDataSource")
+    private DataSource companyDataSource;
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void testCsvIsImportedInParallelChunks() throws Exception {
+        List<String> lines = new ArrayList<>(List.of("id,name,last_name"));
+        IntStream.range(0, 1_000).forEach(i -> lines.add(i + ",\"csv, user " + i + "\",imported-csv"));
+        Path file = Files.write(dir.resolve("users.csv"), lines);
+
+        ImportRecord result = fileImporter.importFile("users", file, CHUNK_BYTES);
+
+        assertEquals(1_000, result.rows());
+        assertTrue(result.chunks() > 1);
+        assertEquals(1_000, new JdbcTemplate(userDataSource).queryForObject(
+                "select count(*) from users where last_name = 'imported-csv' and name like 'csv, user %'", Long.class));
+        assertFalse(Files.exists(dir.resolve("users.csv.checkpoint")));
+    }
+
+    @Test
+    void testFailedImportResumesFromItsCheckpoint() throws Exception {
+        List<String> lines = new ArrayList<>();
+        IntStream.range(0, 1_000).forEach(i -> lines.add("{\"name\":\"ndjson-%04d\"}".formatted(i)));
+        lines.set(700, "{\"name\":\"ndjson-0700\"]");
+        Path file = Files.write(dir.resolve("companies.ndjson"), lines);
+
+        assertThrows(IllegalStateException.class, () -> fileImporter.importFile("companies", file, CHUNK_BYTES));
+        assertTrue(Files.exists(dir.resolve("companies.ndjson.checkpoint")));
+
+        // fixed in place, same length, so the file is cut into the same chunks
+        lines.set(700, "{\"name\":\"ndjson-0700\"}");
+        Files.write(file, lines);
+        ImportRecord result = fileImporter.importFile("companies", file, CHUNK_BYTES);
+
+        assertTrue(result.resumedChunks() > 0);
+        assertTrue(result.rows() < 1_000);
+        assertEquals(1_000, new JdbcTemplate(companyDataSource).queryForObject(
+                "select count(distinct name) from companies where name like 'ndjson-%'", Long.class));
+        assertEquals(1_000, new JdbcTemplate(companyDataSource).queryForObject(
+                "select count(*) from companies where name like 'ndjson-%'", Long.class));
+    }
+}
@@ -0,0 +1,113 @@
+package com.henry;
+
+import com.henry.model.user.User;
+import com.henry.service.GroupCommitter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GroupCommitterTest {
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger batches = new AtomicInteger();
+    private GroupCommitter<User> groupCommitter;
+
+    @AfterEach
+    void tearDown() {
+        groupCommitter.close();
+    }
+
+    @Test
+    void testConcurrentSavesShareOneTransaction() {
+        groupCommitter = new GroupCommitter<>("users", this::saveOne, this::saveBatch, User::getId, User::setId,
+                true, Duration.ofMillis(200), 50);
+
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(groupCommitter.submit(User.builder().name("user" + i).build()));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            User saved = futures.get(i).join();
+            assertEquals("user" + i, saved.getName());
+            assertTrue(saved.getId() != null);
+        }
+        assertEquals(1, batches.get());
+    }
+
+    @Test
+    void testFailingRowOnlyFailsItsOwnCaller() {
+        groupCommitter = new GroupCommitter<>("users", this::saveOne, this::saveBatch, User::getId, User::setId,
+                true, Duration.ofMillis(200), 50);
+
+        CompletableFuture<User> good = groupCommitter.submit(User.builder().name("good").build());
+        CompletableFuture<User> bad = groupCommitter.submit(User.builder().name(null).build());
+
+        assertEquals("good", good.join().getName());
+        CompletionException error = assertThrows(CompletionException.class, bad::join);
+        assertEquals("name is required", error.getCause().getMessage());
+    }
+
+    @Test
+    void testShortBatchResultFailsTheGroupWithoutWritingItAgain() {
+        AtomicInteger singles = new AtomicInteger();
+        groupCommitter = new GroupCommitter<>("users", user -> {
+            singles.incrementAndGet();
+            return saveOne(user);
+        }, users -> saveBatch(users).subList(0, users.size() - 1), User::getId, User::setId,
+                true, Duration.ofMillis(200), 50);
+
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(groupCommitter.submit(User.builder().name("user" + i).build()));
+        }
+
+        for (CompletableFuture<User> future : futures) {
+            CompletionException error = assertThrows(CompletionException.class, future::join);
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+        }
+        assertEquals(1, batches.get());
+        assertEquals(0, singles.get());
+    }
+
+    @Test
+    void testDisabledSavesDirectly() {
+        groupCommitter = new GroupCommitter<>("users", this::saveOne, this::saveBatch, User::getId, User::setId,
+                false, Duration.ofMillis(200), 50);
+
+        assertEquals("solo", groupCommitter.save(User.builder().name("solo").build()).getName());
+        assertEquals(0, batches.get());
+    }
+
+    private User saveOne(User user) {
+        if (user.getName() == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        user.setId(sequence.incrementAndGet());
+        return user;
+    }
+
+    private List<User> saveBatch(List<User> users) {
+        batches.incrementAndGet();
+        // ids are handed out before the batch fails, like a rolled back sequence-backed insert
+        users.forEach(user -> user.setId(sequence.incrementAndGet()));
+        users.forEach(user -> {
+            if (user.getName() == null) {
+                throw new IllegalArgumentException("name is required");
+            }
+        });
+        return users;
+    }
+}
@@ -0,0 +1,80 @@
+package com.henry;
+
+import com.henry.model.id.IdBlockPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdBlockPoolTest {
+
+    @Test
+    void testIdsAreSequentialWithinAndAcrossBlocks() {
+        AtomicLong sequence = new AtomicLong(1);
+        AtomicInteger fetches = new AtomicInteger();
+        IdBlockPool pool = new IdBlockPool(() -> {
+            fetches.incrementAndGet();
+            return sequence.getAndAdd(10);
+        }, 10, Runnable::run);
+
+        for (long expected = 1; expected <= 25; expected++) {
+            assertEquals(expected, pool.next());
+        }
+        // one synchronous fetch, then each following block was prefetched while the previous one ran low
+        assertEquals(3, fetches.get());
+    }
+
+    @Test
+    void testConcurrentCallersNeverShareAnId() throws Exception {
+        AtomicLong sequence = new AtomicLong(1);
+        ExecutorService refill = Executors.newSingleThreadExecutor();
+        IdBlockPool pool = new IdBlockPool(() -> sequence.getAndAdd(50), 50, refill);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(callers.submit(() -> {
+                    List<Long> ids = new ArrayList<>();
+                    for (int j = 0; j < 1_000; j++) {
+                        ids.add(pool.next());
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> unique = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                unique.addAll(future.get());
+            }
+            assertEquals(8_000, unique.size());
+        } finally {
+            callers.shutdownNow();
+            refill.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSpentBlockIsFetchedByTheCallerWhileRefillIsStuck() {
+        AtomicLong sequence = new AtomicLong(1);
+        // the refill never runs, like one waiting for a connection held by the caller
+        IdBlockPool pool = new IdBlockPool(() -> sequence.getAndAdd(10), 10, task -> { });
+
+        for (long expected = 1; expected <= 20; expected++) {
+            assertEquals(expected, pool.next());
+        }
+    }
+
+    @Test
+    void testRejectsNonPositiveBlockSize() {
+        assertThrows(IllegalArgumentException.class, () -> new IdBlockPool(() -> 1, 0, Runnable::run));
+    }
+}
@@ -0,0 +1,83 @@
+package com.henry;
+
+import com.henry.configuration.DataSourceProperties;
+import com.henry.configuration.JsonCache;
+import com.henry.record.JsonCacheRecord;
+import com.henry.record.JsonCacheStatsRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonCacheTest {
+
+    @Test
+    void testEntriesAreOffHeapAndOnlyServeTheirVersion() {
+        JsonCache cache = cache(DataSize.ofKilobytes(1));
+
+        ByteBuffer written = cache.put("users", "all", 7, json("[{\"id\":1}]"));
+        ByteBuffer cached = cache.get("users", "all", 7);
+
+        assertTrue(written.isDirect());
+        assertTrue(cached.isDirect() && cached.isReadOnly());
+        assertEquals("[{\"id\":1}]", StandardCharsets.UTF_8.decode(cached).toString());
+        assertNotNull(cache.get("users", "all", 7));
+        assertNull(cache.get("users", "all", 8));
+        assertNull(cache.get("brands", "all", 7));
+
+        JsonCacheStatsRecord stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvictedToStayUnderTheByteLimit() {
+        JsonCache cache = cache(DataSize.ofBytes(100));
+        cache.put("users", "all", 1, new byte[40]);
+        cache.put("companies", "all", 1, new byte[40]);
+        ByteBuffer held = cache.get("users", "all", 1);
+
+        cache.put("brands", "all", 1, new byte[40]);
+
+        assertNotNull(cache.get("users", "all", 1));
+        assertNull(cache.get("companies", "all", 1));
+        assertEquals(80, cache.stats().bytes());
+        assertEquals(1, cache.stats().evictions());
+        // too large to cache, still handed back to write
+        assertEquals(101, cache.put("users", "all", 2, new byte[101]).remaining());
+        assertEquals(40, held.remaining());
+    }
+
+    @Test
+    void testInvalidateDropsOnlyThatTable() {
+        JsonCache cache = cache(DataSize.ofKilobytes(1));
+        cache.put("users", "all", 1, json("[]"));
+        cache.put("users", "ids=1,2", 1, json("[]"));
+        cache.put("brands", "all", 1, json("[]"));
+
+        cache.invalidate("users");
+
+        assertNull(cache.get("users", "all", 1));
+        assertNull(cache.get("users", "ids=1,2", 1));
+        assertNotNull(cache.get("brands", "all", 1));
+        assertEquals(1, cache.stats().entries());
+    }
+
+    private static JsonCache cache(DataSize maxSize) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setJsonCache(new JsonCacheRecord(true, maxSize));
+        return new JsonCache(properties, new SimpleMeterRegistry());
+    }
+
+    private static byte[] json(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
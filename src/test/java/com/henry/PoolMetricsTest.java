@@ -0,0 +1,41 @@
+package com.henry;
+
+import com.henry.configuration.PoolMetrics;
+import com.henry.record.PoolStatsRecord;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PoolMetricsTest {
+
+    @Test
+    void testSnapshotReportsAcquireTimeAndUtilization() {
+        PoolMetrics poolMetrics = new PoolMetrics();
+        IMetricsTracker tracker = poolMetrics.create("mysql-pool", new PoolStats(0) {
+            @Override
+            protected void update() {
+                activeConnections = 5;
+                idleConnections = 5;
+                totalConnections = 10;
+                maxConnections = 20;
+            }
+        });
+
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(2));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(4));
+        tracker.recordConnectionTimeout();
+
+        PoolStatsRecord stats = poolMetrics.snapshot().get(0);
+
+        assertEquals("mysql-pool", stats.pool());
+        assertEquals(2, stats.acquisitions());
+        assertEquals(3.0, stats.avgAcquireMillis());
+        assertEquals(4.0, stats.maxAcquireMillis());
+        assertEquals(1, stats.timeouts());
+        assertEquals(0.25, stats.utilization());
+    }
+}
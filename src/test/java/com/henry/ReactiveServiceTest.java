@@ -0,0 +1,160 @@
+package com.henry;
+
+import com.henry.model.brand.Brand;
+import com.henry.model.company.Company;
+import com.henry.model.user.User;
+import com.henry.record.BrandRecord;
+import com.henry.record.CompanyRecord;
+import com.henry.record.UserRecord;
+import com.henry.service.DefaultService;
+import com.henry.service.ReactiveService;
+import com.henry.service.RecordService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.mysql.sharding.shards[0].url=jdbc:h2:mem:users_reactive_shard_1;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.mysql.sharding.shards[0].reactiveUrl=r2dbc:h2:mem:///users_reactive_shard_1?options=MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.mysql.sharding.idBlockSize=10",
+        "spring.datasource.mysql.reactive.enabled=true",
+        "spring.datasource.mysql.reactive.url=r2dbc:h2:mem:///test_db?options=MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.postgres.reactive.enabled=true",
+        "spring.datasource.postgres.reactive.url=r2dbc:h2:mem:///postgre_test?options=MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.oracle.reactive.enabled=true",
+        "spring.datasource.oracle.reactive.url=r2dbc:h2:mem:///xe?options=MODE=Oracle;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("embedded")
+class ReactiveServiceTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ReactiveService<UserRecord, Long> reactiveUsers;
+
+    @Autowired
+    private ReactiveService<CompanyRecord, Long> reactiveCompanies;
+
+    @Autowired
+    private ReactiveService<BrandRecord, Long> reactiveBrands;
+
+    @Autowired
+    private RecordService<UserRecord, Long> userRecords;
+
+    @Autowired
+    private RecordService<CompanyRecord, Long> companyRecords;
+
+    @Autowired
+    private DefaultService<Company, Long> companyService;
+
+    @Autowired
+    private DefaultService<Brand, Long> brandService;
+
+    @Autowired
+    private DefaultService<User, Long> userService;
+
+    @Test
+    void testReactiveWritesAreReadByTheJpaStack() {
+        UserRecord user = reactiveUsers.save(new UserRecord(null, "Reactive", "User")).block();
+        CompanyRecord company = reactiveCompanies.save(new CompanyRecord(42L, "Reactive Corp")).block();
+        BrandRecord brand = reactiveBrands.save(new BrandRecord(null, "Reactive Brand")).block();
+
+        assertEquals(user, userRecords.findRecordById(user.id()));
+        assertEquals(company, companyRecords.findRecordById(company.id()));
+        assertEquals("Reactive Brand", brandService.findById(brand.id()).getName());
+        assertEquals(user, reactiveUsers.findById(user.id()).block());
+        assertNull(reactiveCompanies.findById(-1L).block());
+    }
+
+    @Test
+    void testBothStacksDrawDistinctIds() {
+        Set<Long> companyIds = new HashSet<>();
+        Set<Long> brandIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (int i = 0; i < 120; i++) {
+            companyIds.add(companyService.save(Company.builder().name("jpa-" + i).build()).getId());
+            companyIds.add(reactiveCompanies.save(new CompanyRecord(null, "r2dbc-" + i)).block().id());
+            brandIds.add(brandService.save(Brand.builder().name("jpa-" + i).build()).getId());
+            brandIds.add(reactiveBrands.save(new BrandRecord(null, "r2dbc-" + i)).block().id());
+            userIds.add(userService.save(User.builder().name("jpa-" + i).build()).getId());
+            userIds.add(reactiveUsers.save(new UserRecord(null, "r2dbc-" + i, null)).block().id());
+        }
+
+        assertEquals(240, companyIds.size());
+        assertEquals(240, brandIds.size());
+        assertEquals(240, userIds.size());
+        assertTrue(companyIds.stream().allMatch(id -> id > 0));
+    }
+
+    @Test
+    void testBatchEndpointSavesMoreRowsThanOneBatch() {
+        // three batches of the default 50, the last one short
+        List<UserRecord> users = IntStream.range(0, 120)
+                .mapToObj(i -> new UserRecord(null, "posted-" + i, "R"))
+                .toList();
+
+        ResponseEntity<List<UserRecord>> response = restTemplate.exchange("/api/v1/reactive/users/batch",
+                HttpMethod.POST, new HttpEntity<>(users), new ParameterizedTypeReference<>() {
+                });
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<UserRecord> saved = response.getBody();
+        assertEquals(120, saved.size());
+        assertEquals(users.stream().map(UserRecord::name).toList(), saved.stream().map(UserRecord::name).toList());
+        assertEquals(120, saved.stream().map(UserRecord::id).distinct().count());
+        saved.forEach(user -> assertEquals(user, userRecords.findRecordById(user.id())));
+    }
+
+    @Test
+    void testStreamMergesTheShardsInIdOrder() {
+        reactiveUsers.saveAll(Flux.range(0, 75).map(i -> new UserRecord(null, "stream-" + i, "R"))).blockLast();
+
+        List<UserRecord> expected = userRecords.streamRecords(null, 10).toList();
+        List<UserRecord> streamed = reactiveUsers.streamAll(null, 10).collectList().block();
+
+        assertEquals(expected, streamed);
+        assertEquals(new HashSet<>(expected), new HashSet<>(reactiveUsers.findAll().collectList().block()));
+    }
+
+    @Test
+    void testStreamReadsPagesOnDemand() {
+        reactiveCompanies.saveAll(Flux.range(0, 50).map(i -> new CompanyRecord(null, "demand-" + i))).blockLast();
+        AtomicInteger pages = new AtomicInteger();
+
+        List<CompanyRecord> firstRows = new ArrayList<>();
+        Flux.defer(() -> reactiveCompanies.streamAll(null, 5))
+                .doOnNext(row -> {
+                    if (firstRows.size() % 5 == 0) {
+                        pages.incrementAndGet();
+                    }
+                })
+                .take(7, true)
+                .doOnNext(firstRows::add)
+                .blockLast();
+
+        assertEquals(7, firstRows.size());
+        assertEquals(IntStream.range(0, 7).mapToObj(i -> firstRows.get(i).id()).sorted().toList(),
+                firstRows.stream().map(CompanyRecord::id).toList());
+        assertTrue(pages.get() <= 2);
+    }
+}
@@ -0,0 +1,90 @@
+package com.henry;
+
+import com.henry.configuration.ReplicaRoutingDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource router;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        router.close();
+    }
+
+    @Test
+    void testReadOnlyTransactionsAreBalancedOverReplicas() {
+        router = new ReplicaRoutingDataSource("mysql", h2("primary"), List.of(h2("replica1"), h2("replica2")),
+                Duration.ofMinutes(1), null);
+        DataSource dataSource = router.lazy();
+
+        Set<String> readTargets = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            readTargets.add(databaseName(dataSource, true));
+        }
+
+        assertEquals(Set.of("REPLICA1", "REPLICA2"), readTargets);
+        assertEquals("PRIMARY", databaseName(dataSource, false));
+    }
+
+    @Test
+    void testFailedReplicaIsExcludedAndReadsFallBackToPrimary() throws SQLException {
+        DataSource broken = mock(DataSource.class);
+        when(broken.getConnection()).thenThrow(new SQLException("connection refused"));
+        router = new ReplicaRoutingDataSource("postgres", h2("primary"), List.of(broken),
+                Duration.ofMinutes(1), null);
+
+        assertEquals("PRIMARY", databaseName(router.lazy(), true));
+        assertEquals(0, router.healthyReplicas());
+    }
+
+    @Test
+    void testReadYourWritesKeepsReadsOnPrimaryAfterAWrite() {
+        router = new ReplicaRoutingDataSource("oracle", h2("primary"), List.of(h2("replica1")),
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+        DataSource dataSource = router.lazy();
+
+        assertEquals("REPLICA1", databaseName(dataSource, true));
+        databaseName(dataSource, false);
+        assertEquals("PRIMARY", databaseName(dataSource, true));
+    }
+
+    @Test
+    void testReadsOnPrimarySkipTheReplicas() {
+        router = new ReplicaRoutingDataSource("postgres", h2("primary"), List.of(h2("replica1")),
+                Duration.ofMinutes(1), null);
+        DataSource dataSource = router.lazy();
+
+        assertEquals("PRIMARY", ReplicaRoutingDataSource.onPrimary(() -> databaseName(dataSource, true)));
+        assertEquals("REPLICA1", databaseName(dataSource, true));
+    }
+
+    private static String databaseName(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select database()", String.class));
+    }
+
+    private static DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
@@ -0,0 +1,195 @@
+package com.henry;
+
+import com.google.common.cache.Cache;
+import com.henry.configuration.ShardRoutingDataSource;
+import com.henry.model.user.User;
+import com.henry.record.ImportRecord;
+import com.henry.record.UserRecord;
+import com.henry.service.DefaultService;
+import com.henry.service.FileImporter;
+import com.henry.service.RecordService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.mysql.sharding.shards[0].url=jdbc:h2:mem:users_shard_1;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.mysql.sharding.shards[1].url=jdbc:h2:mem:users_shard_2;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.mysql.sharding.idBlockSize=10"
+})
+@ActiveProfiles("embedded")
+class ShardedUserServiceTest {
+
+    @Autowired
+    private DefaultService<User, Long> userService;
+
+    @Autowired
+    private RecordService<UserRecord, Long> userRecords;
+
+    @Autowired
+    private ShardRoutingDataSource userShards;
+
+    @Autowired
+    private Cache<Long, UserRecord> userCache;
+
+    @Autowired
+    private FileImporter fileImporter;
+
+    @Autowired
+    @Qualifier("userTransactionManager")
+    private PlatformTransactionManager userTransactionManager;
+
+    @Test
+    void testUsersAreSpreadOverTheShardsByIdHash() {
+        List<User> saved = saveUsers(60);
+
+        Set<Long> ids = new HashSet<>(saved.stream().map(User::getId).toList());
+        assertEquals(60, ids.size());
+        for (int shard = 0; shard < userShards.shardCount(); shard++) {
+            List<Long> stored = new JdbcTemplate(userShards.shard(shard)).queryForList("select id from users", Long.class);
+            int expectedShard = shard;
+            assertTrue(stored.stream().anyMatch(ids::contains), "shard " + shard + " holds none of the users");
+            assertTrue(stored.stream().filter(ids::contains).allMatch(id -> userShards.shardOf(id) == expectedShard));
+        }
+    }
+
+    @Test
+    void testReadsFindUsersOnEveryShard() {
+        List<User> saved = saveUsers(30);
+        userCache.invalidateAll();
+
+        saved.forEach(user -> assertEquals(user.getName(), userService.findById(user.getId()).getName()));
+
+        Set<Long> all = new HashSet<>();
+        StreamSupport.stream(userService.findAll().spliterator(), false).forEach(user -> all.add(user.getId()));
+        assertTrue(all.containsAll(saved.stream().map(User::getId).toList()));
+
+        List<Long> streamed = userService.streamAll(null, 7).map(User::getId).toList();
+        assertEquals(streamed.stream().sorted().toList(), streamed);
+        assertTrue(streamed.containsAll(saved.stream().map(User::getId).toList()));
+    }
+
+    @Test
+    void testRecordReadsMatchTheEntities() {
+        List<User> saved = saveUsers(30);
+        userCache.invalidateAll();
+
+        saved.forEach(user -> assertEquals(new UserRecord(user.getId(), user.getName(), user.getLastName()),
+                userRecords.findRecordById(user.getId())));
+
+        Set<Long> all = new HashSet<>(userRecords.findAllRecords().stream().map(UserRecord::id).toList());
+        assertTrue(all.containsAll(saved.stream().map(User::getId).toList()));
+
+        List<Long> streamed = userRecords.streamRecords(null, 7).map(UserRecord::id).toList();
+        assertEquals(userService.streamAll(null, 7).map(User::getId).toList(), streamed);
+    }
+
+    @Test
+    void testRecordsByIdsAreGatheredFromEveryShard() {
+        List<User> saved = saveUsers(30);
+        userCache.invalidateAll();
+        List<Long> ids = saved.stream().map(User::getId).toList();
+
+        List<UserRecord> found = userRecords.findRecordsByIds(
+                Stream.concat(ids.stream(), Stream.of(-1L, ids.getFirst())).toList());
+
+        assertEquals(ids, found.stream().map(UserRecord::id).toList());
+        assertEquals(30, userCache.size());
+    }
+
+    @Test
+    void testUpdateStaysOnItsShard() {
+        User user = userService.save(User.builder().name("before").build());
+        user.setName("after");
+        userService.save(user);
+        userCache.invalidateAll();
+
+        assertEquals("after", userService.findById(user.getId()).getName());
+        Integer copies = IntStream.range(0, userShards.shardCount())
+                .mapToObj(shard -> new JdbcTemplate(userShards.shard(shard))
+                        .queryForObject("select count(*) from users where id = ?", Integer.class, user.getId()))
+                .reduce(0, Integer::sum);
+        assertEquals(1, copies);
+    }
+
+    @Test
+    void testTransactionCannotSpanShards() {
+        List<User> saved = saveUsers(20);
+        User first = saved.getFirst();
+        User other = saved.stream()
+                .filter(user -> userShards.shardOf(user.getId()) != userShards.shardOf(first.getId()))
+                .findFirst().orElseThrow();
+        userCache.invalidateAll();
+
+        TransactionTemplate transaction = new TransactionTemplate(userTransactionManager);
+        transaction.setReadOnly(true);
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            userService.findById(first.getId());
+            userService.findById(other.getId());
+        }));
+    }
+
+    @Test
+    void testImportFailingOnOneShardResumesOnlyThatShard(@TempDir Path dir) throws Exception {
+        List<String> lines = IntStream.range(0, 90)
+                .mapToObj(i -> "{\"name\":\"import-%02d\",\"lastName\":\"sharded-import\"}".formatted(i))
+                .toList();
+        Path file = Files.write(dir.resolve("users.ndjson"), lines);
+        int last = userShards.shardCount() - 1;
+        JdbcTemplate lastShard = new JdbcTemplate(userShards.shard(last));
+
+        // one chunk; the shards before the last one commit their part of it, the last one fails
+        lastShard.execute("alter table users add constraint no_import check (last_name <> 'sharded-import')");
+        try {
+            assertThrows(IllegalStateException.class, () -> fileImporter.importFile("users", file, 1 << 20));
+        } finally {
+            lastShard.execute("alter table users drop constraint no_import");
+        }
+        assertEquals(90 / userShards.shardCount() * last, importedUsers());
+
+        ImportRecord result = fileImporter.importFile("users", file, 1 << 20);
+
+        assertEquals(90 / userShards.shardCount(), result.rows());
+        assertEquals(90, importedUsers());
+        for (int shard = 0; shard < userShards.shardCount(); shard++) {
+            List<Long> ids = new JdbcTemplate(userShards.shard(shard))
+                    .queryForList("select id from users where last_name = 'sharded-import'", Long.class);
+            int expectedShard = shard;
+            assertEquals(90 / userShards.shardCount(), ids.size());
+            assertTrue(ids.stream().allMatch(id -> userShards.shardOf(id) == expectedShard));
+        }
+    }
+
+    private long importedUsers() {
+        return IntStream.range(0, userShards.shardCount())
+                .mapToObj(shard -> new JdbcTemplate(userShards.shard(shard)).queryForObject(
+                        "select count(distinct name) from users where last_name = 'sharded-import'", Long.class))
+                .reduce(0L, Long::sum);
+    }
+
+    private List<User> saveUsers(int count) {
+        List<User> users = IntStream.range(0, count)
+                .mapToObj(i -> User.builder().name("user-" + i).lastName("sharded").build())
+                .toList();
+        return StreamSupport.stream(userService.saveAll(users).spliterator(), false).toList();
+    }
+}
@@ -0,0 +1,66 @@
+package com.henry;
+
+import com.henry.configuration.StoreReadiness;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** The accounting headers as returned by the running application, one create per store. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.sqlAccounting.debugHeader=true",
+        // own databases: create-drop on the shared ones would reset them under the other cached contexts
+        "spring.datasource.mysql.url=jdbc:h2:mem:test_db_sql_header;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.postgres.url=jdbc:h2:mem:postgre_sql_header;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.oracle.url=jdbc:h2:mem:xe_sql_header;MODE=Oracle;DB_CLOSE_DELAY=-1"})
+@ActiveProfiles("embedded")
+class SqlAccountingHeaderTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StoreReadiness storeReadiness;
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({"mysql, /api/v1/users", "postgres, /api/v2/companies", "oracle, /api/v3/brands"})
+    void testCreateReportsItsStatements(String store, String path) throws InterruptedException {
+        awaitReady(store);
+
+        ResponseEntity<String> response = restTemplate.postForEntity(path, Map.of("name", "counted"), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String header = response.getHeaders().getFirst("X-Sql-Statements");
+        assertNotNull(header, "no X-Sql-Statements header");
+        assertTrue(statements(header, store) > 0, header);
+        assertTrue(response.getHeaders().getFirst("X-Sql-Time-Ms").contains(store + "="));
+    }
+
+    private static long statements(String header, String store) {
+        for (String entry : header.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts[0].equals(store)) {
+                return Long.parseLong(parts[1]);
+            }
+        }
+        return 0;
+    }
+
+    private void awaitReady(String store) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (storeReadiness.state(store) != StoreReadiness.State.READY && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.henry;
+
+import com.henry.configuration.DataSourceProperties;
+import com.henry.configuration.SqlAccount;
+import com.henry.configuration.SqlAccountingDataSource;
+import com.henry.controller.SqlAccountingFilter;
+import com.henry.record.SqlAccountingRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlAccountingTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        SqlAccount.close();
+    }
+
+    @Test
+    void testStatementsAreCountedPerDatasourceAndShape() throws SQLException {
+        DataSource dataSource = new SqlAccountingDataSource("mysql", h2());
+        SqlAccount account = SqlAccount.open();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (int i = 0; i < 12; i++) {
+                select(connection, i);
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("select 42 as answer");
+            }
+        }
+
+        assertEquals(13, account.statements());
+        assertEquals(13L, account.statementsByDatasource().get("mysql"));
+        List<String> repeated = account.repeated(10);
+        assertEquals(1, repeated.size());
+        assertTrue(repeated.get(0).startsWith("mysql x12"));
+    }
+
+    @Test
+    void testConnectionsOutsideARequestAreNotWrapped() throws SQLException {
+        JdbcDataSource target = h2();
+        try (Connection connection = new SqlAccountingDataSource("mysql", target).getConnection()) {
+            assertFalse(Proxy.isProxyClass(connection.getClass()));
+        }
+    }
+
+    @Test
+    void testFilterFlagsRepeatedStatementsAndReturnsDebugHeaders() throws Exception {
+        DataSourceProperties dsProperties = new DataSourceProperties();
+        dsProperties.setSqlAccounting(new SqlAccountingRecord(50, Duration.ofSeconds(1), 3, true));
+        SqlAccountingFilter filter = new SqlAccountingFilter(dsProperties, registry);
+        DataSource dataSource = new SqlAccountingDataSource("oracle", h2());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v3/brands"), response,
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                        try (Connection connection = dataSource.getConnection()) {
+                            for (int i = 0; i < 4; i++) {
+                                select(connection, i);
+                            }
+                        } catch (SQLException e) {
+                            throw new IOException(e);
+                        }
+                        resp.getWriter().write("[]");
+                    }
+                }));
+
+        assertEquals("oracle=4", response.getHeader("X-Sql-Statements"));
+        assertTrue(response.getHeader("X-Sql-Time-Ms").startsWith("oracle="));
+        assertEquals(1, registry.get("datasource.request.flagged").counter().count());
+        assertEquals(4, registry.get("datasource.request.statements").tag("datasource", "oracle")
+                .summary().totalAmount());
+    }
+
+    @Test
+    void testShapesFoldLiteralsAndInLists() {
+        assertEquals("select * from brands where id in (...) and name = ? and rownum < ?",
+                SqlAccount.shape("select *  from brands\n where id in (?, ?, ?) and name = 'a' and rownum < 10"));
+    }
+
+    private static void select(Connection connection, int value) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select ?")) {
+            statement.setInt(1, value);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+            }
+        }
+    }
+
+    private static JdbcDataSource h2() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:sql_accounting");
+        return dataSource;
+    }
+}
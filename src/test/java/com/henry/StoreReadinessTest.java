@@ -0,0 +1,62 @@
+package com.henry;
+
+import com.henry.configuration.StoreReadiness;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Oracle is unreachable: the application still starts and serves the other two stores. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.oracle.url=jdbc:h2:tcp://localhost:1/unreachable",
+        "spring.datasource.oracle.pool.connectionTimeout=500"})
+@ActiveProfiles("embedded")
+class StoreReadinessTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StoreReadiness storeReadiness;
+
+    @Test
+    void testUnreachableStoreOnlyFailsItsOwnEndpoints() throws InterruptedException {
+        awaitSettled("mysql");
+        awaitSettled("oracle");
+
+        ResponseEntity<Map> user = restTemplate.postForEntity("/api/v1/users", Map.of("name", "up"), Map.class);
+        assertEquals(HttpStatus.OK, user.getStatusCode());
+
+        ResponseEntity<Map> brand = restTemplate.postForEntity("/api/v3/brands", Map.of("name", "down"), Map.class);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, brand.getStatusCode());
+        assertEquals("5", brand.getHeaders().getFirst("Retry-After"));
+
+        Map<?, ?> aggregate = restTemplate.getForObject("/api/aggregate?userId={u}&brandId=1", Map.class,
+                user.getBody().get("id"));
+        assertTrue(String.valueOf(((Map<?, ?>) aggregate.get("errors")).get("brands")).contains("not ready"));
+        assertEquals(StoreReadiness.State.FAILED, storeReadiness.state("oracle"));
+        // the state only, the connection error stays in the log
+        assertEquals("FAILED", storeReadiness.health().getDetails().get("oracle"));
+        ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+                () -> storeReadiness.check("oracle"));
+        assertEquals("oracle failed to start", refused.getReason());
+    }
+
+    private void awaitSettled(String store) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (storeReadiness.state(store) == StoreReadiness.State.STARTING && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+}
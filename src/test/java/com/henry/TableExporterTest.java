@@ -0,0 +1,118 @@
+package com.henry;
+
+import com.henry.record.ExportRecord;
+import com.henry.service.FileImporter;
+import com.henry.service.Snapshot;
+import com.henry.service.SnapshotReader;
+import com.henry.service.TableExporter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class TableExporterTest {
+
+    @Autowired
+    private TableExporter tableExporter;
+
+    @Autowired
+    private FileImporter fileImporter;
+
+    @Autowired
+    @Qualifier("userDataSource")
+    private DataSource userDataSource;
+
+    @Autowired
+    @Qualifier("companyDataSource")
+    private DataSource companyDataSource;
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void testExportReadsBackAsTheTable() throws Exception {
+        List<String> lines = new ArrayList<>();
+        IntStream.range(0, 10_000).forEach(i -> lines.add("{\"name\":\"export-%d\",\"lastName\":%s}".formatted(i,
+                i % 10 == 0 ? "null" : "\"last-" + i + "\"")));
+        fileImporter.importFile("users", Files.write(dir.resolve("users.ndjson"), lines), FileImporter.DEFAULT_CHUNK_BYTES);
+
+        Path plain = dir.resolve("users.snap");
+        Path deflated = dir.resolve("users-deflated.snap");
+        ExportRecord plainResult = tableExporter.export("users", plain, false, 4);
+        ExportRecord deflatedResult = tableExporter.export("users", deflated, true, 3);
+
+        List<Object[]> expected = new JdbcTemplate(userDataSource).query(
+                "select id, name, last_name from users order by id",
+                (row, i) -> new Object[]{row.getLong(1), row.getString(2), row.getString(3)});
+        assertEquals(expected.size(), plainResult.rows());
+        assertTrue(deflatedResult.bytes() < plainResult.bytes());
+        assertEquals(plainResult.bytes(), Files.size(plain));
+        for (Path file : List.of(plain, deflated)) {
+            try (SnapshotReader reader = SnapshotReader.open(file)) {
+                assertEquals("users", reader.entity());
+                assertEquals(List.of("id", "name", "last_name"),
+                        reader.columns().stream().map(Snapshot.Column::name).toList());
+                List<Object[]> rows = reader.rows().sorted(Comparator.comparing(row -> (Long) row[0])).toList();
+                assertEquals(expected.size(), rows.size());
+                IntStream.range(0, rows.size()).forEach(i -> assertTrue(Arrays.equals(expected.get(i), rows.get(i)),
+                        () -> Arrays.toString(expected.get(i)) + " != " + Arrays.toString(rows.get(i))));
+            }
+        }
+    }
+
+    @Test
+    void testExportAllWritesEveryStore() throws Exception {
+        List<ExportRecord> results = tableExporter.exportAll(dir.resolve("all"), true, 2);
+
+        assertEquals(List.of("brands", "companies", "users"), results.stream().map(ExportRecord::entity).toList());
+        long companies = new JdbcTemplate(companyDataSource).queryForObject("select count(*) from companies", Long.class);
+        try (SnapshotReader reader = SnapshotReader.open(dir.resolve("all").resolve("companies.snap"))) {
+            assertEquals(companies, reader.rows().count());
+        }
+        try (var files = Files.list(dir.resolve("all"))) {
+            assertFalse(files.anyMatch(file -> file.toString().endsWith(".part")));
+        }
+    }
+
+    @Test
+    void testTruncatedSnapshotFails() throws Exception {
+        Path file = dir.resolve("companies.snap");
+        tableExporter.export("companies", file, false, 1);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 4);
+        }
+
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            assertThrows(IOException.class, () -> {
+                try {
+                    reader.rows().count();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+    }
+}
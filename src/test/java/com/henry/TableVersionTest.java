@@ -0,0 +1,206 @@
+package com.henry;
+
+import com.henry.model.brand.Brand;
+import com.henry.model.company.Company;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.service.BrandServiceImpl;
+import com.henry.service.CompanyServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.tableVersions.refreshInterval=100ms",
+        "spring.datasource.jsonCache.enabled=true",
+        "spring.datasource.postgres.replication.replicas[0].url=" + TableVersionTest.LAGGING_REPLICA})
+@ActiveProfiles("embedded")
+class TableVersionTest {
+
+    /** A replica of companies that never caught up: it only has a row long since gone from the primary. */
+    static final String LAGGING_REPLICA = "jdbc:h2:mem:postgre_lagging;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    static {
+        // runs before the application context is built
+        try (Connection connection = DriverManager.getConnection(LAGGING_REPLICA, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table companies (id bigint not null primary key, name varchar(255))");
+            statement.execute("insert into companies (id, name) values (1, 'Stale Corp')");
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> RECORDS =
+            new ParameterizedTypeReference<>() {
+            };
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @SpyBean
+    private CompanyServiceImpl companyService;
+
+    @Autowired
+    private BrandServiceImpl brandService;
+
+    @Autowired
+    @Qualifier("companyTableVersion")
+    private TableVersionCounter companyTableVersion;
+
+    @Autowired
+    @Qualifier("companyDataSource")
+    private DataSource companyDataSource;
+
+    @Test
+    void testUnchangedListIsNotModifiedWithoutAQuery() throws InterruptedException {
+        companyService.save(Company.builder().name("Polled Corp").build());
+        await(companyTableVersion::current, version -> version != TableVersionCounter.UNKNOWN);
+
+        ResponseEntity<String> first = restTemplate.getForEntity("/api/v2/companies", String.class);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        clearInvocations(companyService);
+
+        ResponseEntity<List<Map<String, Object>>> poll = get("/api/v2/companies", etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, poll.getStatusCode());
+        assertEquals(etag, poll.getHeaders().getETag());
+        assertNull(poll.getBody());
+        verify(companyService, never()).findAllRecords();
+    }
+
+    @Test
+    void testOtherPollersGetTheCachedJson() throws InterruptedException {
+        companyService.save(Company.builder().name("Cached Corp").build());
+        await(companyTableVersion::current, version -> version != TableVersionCounter.UNKNOWN);
+        clearInvocations(companyService);
+
+        ResponseEntity<String> first = restTemplate.getForEntity("/api/v2/companies", String.class);
+        ResponseEntity<String> second = restTemplate.getForEntity("/api/v2/companies", String.class);
+
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertTrue(second.getBody().contains("Cached Corp"));
+        verify(companyService, times(1)).findAllRecords();
+    }
+
+    @Test
+    void testTaggedListIsReadOnThePrimary() throws InterruptedException {
+        companyService.save(Company.builder().name("Fresh Corp").build());
+        await(companyTableVersion::current, version -> version != TableVersionCounter.UNKNOWN);
+
+        ResponseEntity<String> list = restTemplate.getForEntity("/api/v2/companies", String.class);
+        ResponseEntity<String> cached = restTemplate.getForEntity("/api/v2/companies", String.class);
+
+        assertNotNull(list.getHeaders().getETag());
+        assertTrue(list.getBody().contains("Fresh Corp"), list.getBody());
+        assertFalse(list.getBody().contains("Stale Corp"), list.getBody());
+        // the other pollers of the version get the same primary read from the JSON cache
+        assertEquals(list.getHeaders().getETag(), cached.getHeaders().getETag());
+        assertEquals(list.getBody(), cached.getBody());
+    }
+
+    @Test
+    void testSaveChangesTheEtag() {
+        brandService.save(Brand.builder().name("Before").build());
+        ResponseEntity<String> first = restTemplate.getForEntity("/api/v3/brands", String.class);
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+
+        brandService.save(Brand.builder().name("After").build());
+        ResponseEntity<List<Map<String, Object>>> poll = get("/api/v3/brands", etag);
+
+        assertEquals(HttpStatus.OK, poll.getStatusCode());
+        assertNotEquals(etag, poll.getHeaders().getETag());
+        assertTrue(poll.getBody().stream().anyMatch(brand -> "After".equals(brand.get("name"))));
+    }
+
+    @Test
+    void testNodesSeeEachOthersWrites() throws InterruptedException {
+        // a second node's counter on the same database
+        try (TableVersionCounter otherNode = new TableVersionCounter(companyDataSource, "companies",
+                Duration.ofMillis(100))) {
+            companyService.save(Company.builder().name("Node A").build());
+            long written = companyTableVersion.current();
+            await(otherNode::current, version -> version == written);
+
+            otherNode.bump();
+            long otherWritten = otherNode.current();
+            assertTrue(otherWritten > written);
+            await(companyTableVersion::current, version -> version == otherWritten);
+        }
+    }
+
+    @Test
+    void testMissingRowStartsAtTheCurrentTimeAndMovesWithTheData() throws InterruptedException, SQLException {
+        long before = System.currentTimeMillis();
+        try (TableVersionCounter missing = new TableVersionCounter(companyDataSource, "recreated",
+                Duration.ofMillis(100))) {
+            await(missing::current, version -> version != TableVersionCounter.UNKNOWN);
+            long created = missing.current();
+            assertTrue(created >= before, "version " + created + " is older than the table");
+
+            try (TableVersionCounter otherNode = new TableVersionCounter(companyDataSource, "recreated",
+                    Duration.ofMillis(100))) {
+                await(otherNode::current, version -> version == created);
+                missing.bump();
+                long changed = missing.current();
+                assertTrue(changed > created);
+                await(otherNode::current, version -> version == changed);
+            }
+        } finally {
+            try (Connection connection = companyDataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("delete from table_versions where name = 'recreated'");
+            }
+        }
+    }
+
+    private ResponseEntity<List<Map<String, Object>>> get(String path, String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), RECORDS);
+    }
+
+    private static void await(LongSupplier value, LongPredicate done) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!done.test(value.getAsLong()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(done.test(value.getAsLong()), "timed out, last value " + value.getAsLong());
+    }
+}
@@ -1,20 +1,35 @@
 package com.henry;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
+import com.henry.configuration.ConcurrencyLimiter;
+import com.henry.configuration.ShardRoutingDataSource;
+import com.henry.model.id.IdBlockPool;
 import com.henry.model.user.User;
+import com.henry.model.version.TableVersionCounter;
+import com.henry.record.UserRecord;
 import com.henry.repository.user.UserRepository;
 import com.henry.service.UserServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import javax.sql.DataSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -24,6 +39,21 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private Cache<Long, UserRecord> userCache = CacheBuilder.newBuilder().recordStats().build();
+
+    @Spy
+    private ShardRoutingDataSource userShards = new ShardRoutingDataSource("mysql", List.of(mock(DataSource.class)));
+
+    @Spy
+    private IdBlockPool userIds = new IdBlockPool(() -> 1L, 50, Runnable::run);
+
+    @Mock
+    private TableVersionCounter userTableVersion;
+
+    @Spy
+    private ConcurrencyLimiter userLimiter = new ConcurrencyLimiter("mysql", true, 20, 2, 200, 1.5, Duration.ofSeconds(1));
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -52,6 +82,35 @@ public class UserServiceTest {
 
         assertEquals(user, saved);
         verify(userRepository).save(any());
+        verify(userTableVersion).bump();
+    }
+
+    @Test
+    void testSaveNewUserAssignsIdAndInserts() {
+        User user = User.builder().name("John").lastName("Doe").build();
+
+        when(userRepository.insert(user)).thenReturn(user);
+
+        User saved = userService.save(user);
+
+        assertEquals(1L, saved.getId());
+        verify(userRepository).insert(user);
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void testSaveAllUsers() {
+        List<User> users = List.of(
+                User.builder().id(1L).name("John").lastName("Doe").build(),
+                User.builder().id(2L).name("Jane").lastName("Doe").build());
+
+        when(userRepository.saveAll(users)).thenReturn(users);
+
+        Iterable<User> saved = userService.saveAll(users);
+
+        assertEquals(2, Iterables.size(saved));
+        verify(userRepository).saveAll(users);
+        verify(userTableVersion).bump();
     }
 
     @Test
@@ -90,4 +149,38 @@ public class UserServiceTest {
         assertEquals(user, result);
         verify(userRepository).findById(1L);
     }
+
+    @Test
+    void testFindUserRecordByIdIsCachedUntilSaved() {
+        User user = User.builder()
+                .id(1L)
+                .name("Cached")
+                .build();
+
+        when(userRepository.findRecordById(1L)).thenReturn(Optional.of(new UserRecord(1L, "Cached", null)));
+        when(userRepository.save(user)).thenReturn(user);
+
+        userService.findRecordById(1L);
+        userService.findRecordById(1L);
+        userService.save(user);
+        userService.findRecordById(1L);
+
+        verify(userRepository, times(2)).findRecordById(1L);
+        assertEquals(1, userCache.stats().hitCount());
+    }
+
+    @Test
+    void testStreamAllUsersPagesByKeyset() {
+        User first = User.builder().id(1L).name("John").lastName("Doe").build();
+        User second = User.builder().id(2L).name("Jane").lastName("Doe").build();
+        User third = User.builder().id(3L).name("Jim").lastName("Doe").build();
+
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(first, second));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(2))).thenReturn(List.of(third));
+
+        List<User> result = userService.streamAll(null, 2).toList();
+
+        assertEquals(List.of(first, second, third), result);
+        verify(userRepository, times(2)).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.henry.load;
+
+import com.henry.load.LoadGenerator.Endpoint;
+import com.henry.load.LoadGenerator.Mode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of the create endpoints on the embedded databases, run with {@code mvn -Pload-test test}. Each
+ * endpoint runs closed and open loop and must stay within the budgets of {@code load-budgets.properties}.
+ * Settings can be overridden with system properties of the same name, e.g. {@code -Dload.duration=PT30S}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("embedded")
+class EndpointLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EndpointLoadTest.class);
+    private static final Path REPORTS = Path.of("target", "load");
+    private static final Properties budgets = new Properties();
+    private static boolean warmedUp;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeAll
+    static void loadBudgets() throws IOException {
+        try (InputStream in = EndpointLoadTest.class.getResourceAsStream("/load-budgets.properties")) {
+            budgets.load(in);
+        }
+        budgets.putAll(System.getProperties());
+    }
+
+    static Stream<Arguments> runs() {
+        return LoadGenerator.endpoints().stream()
+                .flatMap(endpoint -> Arrays.stream(Mode.values()).map(mode -> Arguments.of(endpoint, mode)));
+    }
+
+    @ParameterizedTest(name = "{0} {1}")
+    @MethodSource("runs")
+    void testEndpointStaysWithinBudget(Endpoint endpoint, Mode mode) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        LoadGenerator generator = new LoadGenerator(client, URI.create("http://localhost:" + port));
+        int concurrency = Integer.parseInt(budgets.getProperty("load.concurrency"));
+        Duration warmup = Duration.parse(budgets.getProperty("load.warmup"));
+        if (!warmedUp) {
+            generator.warmUp(LoadGenerator.endpoints(), concurrency, warmup);
+            warmedUp = true;
+        }
+
+        LoadResult result = generator.run(endpoint, mode, concurrency,
+                Integer.parseInt(budgets.getProperty("load.rate")), warmup,
+                Duration.parse(budgets.getProperty("load.duration")));
+        log.info("{}", result);
+        result.writeDistribution(REPORTS);
+
+        String prefix = endpoint.name() + "." + mode.name().toLowerCase() + ".";
+        assertAll(
+                () -> assertEquals(0, result.errors(), "errors"),
+                () -> assertAtMost(result.p99(), prefix + "p99"),
+                () -> assertAtMost(result.p999(), prefix + "p999"),
+                () -> assertAtLeast(result.throughput(), prefix + "throughput"));
+    }
+
+    /** Budgets left out of the file are not checked. */
+    private static void assertAtMost(double actual, String key) {
+        String budget = budgets.getProperty(key);
+        if (budget != null) {
+            assertTrue(actual <= Double.parseDouble(budget), key + " " + actual + " over budget " + budget);
+        }
+    }
+
+    private static void assertAtLeast(double actual, String key) {
+        String budget = budgets.getProperty(key);
+        if (budget != null) {
+            assertTrue(actual >= Double.parseDouble(budget), key + " " + actual + " under budget " + budget);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.henry.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives one endpoint over HTTP and records response times in an HdrHistogram.
+ * <p>
+ * Closed loop keeps a fixed number of callers sending back to back, so it finds the throughput the server can
+ * sustain. Open loop sends at a fixed rate whether or not earlier requests have returned, and times each request
+ * from the moment it was due, so a stalled server shows up in the percentiles instead of silently lowering the
+ * offered load.
+ */
+final class LoadGenerator {
+
+    enum Mode { CLOSED, OPEN }
+
+    /** A POST endpoint and the JSON body sent to it. */
+    record Endpoint(String name, String path, String body) {
+    }
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final HttpClient client;
+    private final URI baseUri;
+
+    LoadGenerator(HttpClient client, URI baseUri) {
+        this.client = client;
+        this.baseUri = baseUri;
+    }
+
+    /**
+     * Runs {@code endpoint} for {@code warmup}, discarding the results, then for {@code duration}. Closed loop uses
+     * {@code concurrency} callers, open loop sends {@code ratePerSecond} requests a second.
+     */
+    LoadResult run(Endpoint endpoint, Mode mode, int concurrency, int ratePerSecond, Duration warmup,
+                   Duration duration) throws InterruptedException {
+        measure(endpoint, mode, concurrency, ratePerSecond, warmup);
+        return measure(endpoint, mode, concurrency, ratePerSecond, duration);
+    }
+
+    /**
+     * Runs every endpoint closed loop for {@code each} so the JIT has compiled the shared request path before the
+     * first measurement; otherwise whichever endpoint runs first pays for it.
+     */
+    void warmUp(List<Endpoint> endpoints, int concurrency, Duration each) throws InterruptedException {
+        for (Endpoint endpoint : endpoints) {
+            measure(endpoint, Mode.CLOSED, concurrency, 0, each);
+        }
+    }
+
+    private LoadResult measure(Endpoint endpoint, Mode mode, int concurrency, int ratePerSecond,
+                               Duration duration) throws InterruptedException {
+        Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        AtomicLong errors = new AtomicLong();
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(endpoint.path()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(endpoint.body()))
+                .build();
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (mode == Mode.CLOSED) {
+                for (int i = 0; i < concurrency; i++) {
+                    callers.execute(() -> {
+                        while (System.nanoTime() < deadline) {
+                            send(request, System.nanoTime(), histogram, errors);
+                        }
+                    });
+                }
+            } else {
+                long interval = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+                for (long due = start; due < deadline; due += interval) {
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    long intended = due;
+                    callers.execute(() -> send(request, intended, histogram, errors));
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return LoadResult.of(endpoint.name(), mode, histogram, errors.get(), elapsed);
+    }
+
+    private void send(HttpRequest request, long startNanos, Histogram histogram, AtomicLong errors) {
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 400) {
+                errors.incrementAndGet();
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            errors.incrementAndGet();
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        histogram.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+    }
+
+    static List<Endpoint> endpoints() {
+        List<Endpoint> endpoints = new ArrayList<>();
+        endpoints.add(new Endpoint("users", "/api/v1/users", "{\"name\":\"load\",\"lastName\":\"test\"}"));
+        endpoints.add(new Endpoint("companies", "/api/v2/companies", "{\"name\":\"load\"}"));
+        endpoints.add(new Endpoint("brands", "/api/v3/brands", "{\"name\":\"load\"}"));
+        return endpoints;
+    }
+}
@@ -0,0 +1,42 @@
+package com.henry.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** Throughput and latency percentiles of one load run, in requests a second and milliseconds. */
+record LoadResult(String endpoint, LoadGenerator.Mode mode, long requests, long errors, double throughput,
+                  double p50, double p99, double p999, double max, Histogram histogram) {
+
+    static LoadResult of(String endpoint, LoadGenerator.Mode mode, Histogram histogram, long errors,
+                         long elapsedNanos) {
+        long requests = histogram.getTotalCount();
+        double throughput = requests * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        return new LoadResult(endpoint, mode, requests, errors, throughput,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()), histogram);
+    }
+
+    /** Writes the full percentile distribution, plottable with the HdrHistogram plotter. */
+    void writeDistribution(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(endpoint + "-" + mode.name().toLowerCase() + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-9s %-6s requests=%d errors=%d throughput=%.1f/s p50=%.2fms p99=%.2fms "
+                + "p999=%.2fms max=%.2fms", endpoint, mode, requests, errors, throughput, p50, p99, p999, max);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}